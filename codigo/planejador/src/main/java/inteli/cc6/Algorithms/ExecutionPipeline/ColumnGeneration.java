@@ -0,0 +1,251 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+import inteli.cc6.Algorithms.Solvers.SolverSession;
+import inteli.cc6.InputReader.InputReader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The ColumnGeneration class builds a pattern pool with the Gilmore-Gomory method.
+ * It solves the linear relaxation of the cutting problem over the current pool,
+ * reads the dual price of every width demand constraint and prices a new pattern
+ * with a knife-limited knapsack, until no pattern has a negative reduced cost.
+ */
+public class ColumnGeneration {
+    private static final double EPSILON = 1e-6;
+
+    private final int maxLength;
+    private final int maxKnives;
+    private final ArrayList<Integer> uniqueLengthList;
+    private final ArrayList<Integer> uniqueCoilList;
+
+    private final ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+    private final ArrayList<Double> wastes = new ArrayList<>();
+    private double lowerBound = Double.NaN;
+    private boolean converged = false;
+
+    /**
+     * Constructs a ColumnGeneration object for the order book of the given InputReader.
+     * @param sourceReader the InputReader object to read the input data from
+     */
+    public ColumnGeneration(InputReader sourceReader) {
+        HashMap<String, Integer> specs = sourceReader.getSetupSpecs();
+        this.maxLength = specs.get("Larg Max");
+        this.maxKnives = specs.get("Máx. bob/tirada");
+
+        HashMap<Integer, Integer> demandMap = sourceReader.getUniqueCoilLengthsAndAmounts();
+        this.uniqueLengthList = new ArrayList<>(demandMap.keySet());
+        this.uniqueCoilList = new ArrayList<>(demandMap.values());
+    }
+
+    /**
+     * Runs the column generation until the linear relaxation is optimal or the column budget is spent.
+     * @param maxColumns the maximum number of priced columns to add to the initial pool
+     * @param onColumn called once after each pricing round, may be null
+     */
+    public void run(int maxColumns, Runnable onColumn) {
+        SolverSession session = SolverSession.getInstance();
+        MPSolver solver = session.acquire("GLOP");
+
+        try {
+            // One demand constraint per width
+            MPConstraint[] demand = new MPConstraint[uniqueLengthList.size()];
+            for (int i = 0; i < uniqueLengthList.size(); i++) {
+                demand[i] = solver.makeConstraint(uniqueCoilList.get(i), MPSolver.infinity());
+            }
+            MPObjective objective = solver.objective();
+            objective.setMinimization();
+
+            // Start from the homogeneous patterns, which always cover the demand
+            for (int i = 0; i < uniqueLengthList.size(); i++) {
+                int length = uniqueLengthList.get(i);
+                if (length > maxLength) {
+                    throw new IllegalArgumentException("Width " + length + " does not fit the coil");
+                }
+                ArrayList<Integer> pattern = new ArrayList<>();
+                for (int j = 0; j < uniqueLengthList.size(); j++) {
+                    pattern.add(j == i ? Math.min(maxLength / length, maxKnives) : 0);
+                }
+                addColumn(solver, demand, objective, pattern);
+            }
+
+            for (int column = 0; column <= maxColumns; column++) {
+                MPSolver.ResultStatus resultStatus = solver.solve();
+                if (resultStatus != MPSolver.ResultStatus.OPTIMAL) {
+                    throw new RuntimeException("The master problem does not have an optimal solution");
+                }
+
+                double[] duals = new double[demand.length];
+                for (int i = 0; i < demand.length; i++) {
+                    duals[i] = Math.max(0, demand[i].dualValue());
+                }
+
+                // The reduced cost of a pattern is its waste minus the dual value of its coils
+                ArrayList<Integer> pattern = price(duals);
+                double reducedCost = waste(pattern);
+                for (int i = 0; i < pattern.size(); i++) {
+                    reducedCost -= duals[i] * pattern.get(i);
+                }
+
+                if (reducedCost > -EPSILON) {
+                    lowerBound = objective.value();
+                    converged = true;
+                    break;
+                }
+                if (column == maxColumns) {
+                    break;
+                }
+                addColumn(solver, demand, objective, pattern);
+                if (onColumn != null) {
+                    onColumn.run();
+                }
+            }
+        } finally {
+            session.release("GLOP", solver);
+        }
+    }
+
+    /**
+     * Adds a pattern to the pool and as a column of the master problem.
+     */
+    private void addColumn(MPSolver solver, MPConstraint[] demand, MPObjective objective, ArrayList<Integer> pattern) {
+        MPVariable x = solver.makeNumVar(0.0, MPSolver.infinity(), "pattern" + patterns.size());
+        for (int i = 0; i < demand.length; i++) {
+            if (pattern.get(i) > 0) {
+                demand[i].setCoefficient(x, pattern.get(i));
+            }
+        }
+        double waste = waste(pattern);
+        objective.setCoefficient(x, waste);
+        patterns.add(pattern);
+        wastes.add(waste);
+    }
+
+    /**
+     * Finds the pattern of minimum reduced cost, that is, the one maximizing the
+     * sum of (width + dual price) over its coils, within the coil length and knife limit.
+     * @param duals the dual price of each width demand constraint
+     * @return the priced pattern, as counts over the unique length order
+     */
+    ArrayList<Integer> price(double[] duals) {
+        int size = uniqueLengthList.size();
+
+        // Scale the lengths by their greatest common divisor to keep the table small
+        int divisor = 0;
+        int minLength = Integer.MAX_VALUE;
+        for (int length : uniqueLengthList) {
+            divisor = gcd(divisor, length);
+            minLength = Math.min(minLength, length);
+        }
+        int capacity = maxLength / divisor;
+        int knives = Math.min(maxKnives, maxLength / minLength);
+
+        // Split each bounded width into binary copies, turning it into a 0-1 knapsack
+        ArrayList<int[]> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int bound = Math.min(maxLength / uniqueLengthList.get(i), knives);
+            for (int amount = 1; bound > 0; amount *= 2) {
+                int taken = Math.min(amount, bound);
+                items.add(new int[]{i, taken});
+                bound -= taken;
+            }
+        }
+
+        double[][] best = new double[capacity + 1][knives + 1];
+        boolean[][][] taken = new boolean[items.size()][capacity + 1][knives + 1];
+        for (int k = 0; k < items.size(); k++) {
+            int index = items.get(k)[0];
+            int amount = items.get(k)[1];
+            int width = amount * uniqueLengthList.get(index) / divisor;
+            double value = amount * (uniqueLengthList.get(index) + duals[index]);
+            for (int c = capacity; c >= width; c--) {
+                for (int r = knives; r >= amount; r--) {
+                    double candidate = best[c - width][r - amount] + value;
+                    if (candidate > best[c][r]) {
+                        best[c][r] = candidate;
+                        taken[k][c][r] = true;
+                    }
+                }
+            }
+        }
+
+        // Walk back through the table to rebuild the pattern
+        ArrayList<Integer> pattern = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            pattern.add(0);
+        }
+        int c = capacity;
+        int r = knives;
+        for (int k = items.size() - 1; k >= 0; k--) {
+            if (taken[k][c][r]) {
+                int index = items.get(k)[0];
+                int amount = items.get(k)[1];
+                pattern.set(index, pattern.get(index) + amount);
+                c -= amount * uniqueLengthList.get(index) / divisor;
+                r -= amount;
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Computes the waste of a pattern.
+     */
+    private double waste(ArrayList<Integer> pattern) {
+        int currentLength = 0;
+        for (int i = 0; i < pattern.size(); i++) {
+            currentLength += pattern.get(i) * uniqueLengthList.get(i);
+        }
+        return maxLength - currentLength;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the generated patterns.
+     * @return the patterns, as counts over the unique length order
+     */
+    public ArrayList<ArrayList<Integer>> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Returns the waste of each generated pattern, in the same order as the patterns.
+     * @return the objective coefficients of the pool
+     */
+    public double[] getObjectiveCoefficients() {
+        double[] objectiveCoefficients = new double[wastes.size()];
+        for (int i = 0; i < wastes.size(); i++) {
+            objectiveCoefficients[i] = wastes.get(i);
+        }
+        return objectiveCoefficients;
+    }
+
+    /**
+     * Returns the optimal value of the linear relaxation, a lower bound for any integer plan.
+     * @return the lower bound, or NaN if the column generation did not converge
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Tells whether no remaining pattern had a negative reduced cost.
+     * @return true if the linear relaxation was solved to optimality
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
@@ -0,0 +1,311 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Algorithms.Solvers.Solver.MIPISolver;
+import inteli.cc6.InputReader.InputReader;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The Decomposition class splits a large order book into groups of widths that are solved on their own,
+ * concurrently, instead of one monolithic model. Widths are spread over the groups by fit class, the number
+ * of coils of the width that fit in "Larg Max", so each group is a smaller order book whose widths can still
+ * fill a coil together. Each group is solved over the patterns of the pool projected on its widths and
+ * completed with them.
+ * <p>
+ * The most wasteful cuts of every group plan are then released, and a coordinating pass solves the demand
+ * they leave uncovered over the patterns of the whole pool, so the leftovers of different groups can share
+ * a coil. The plan is usually slightly more wasteful than the monolithic one and carries no lower bound.
+ */
+public class Decomposition {
+    private final int maxLength;
+    private final int maxKnives;
+
+    private int groups = 2;
+    private double leftoverShare = 0.2;
+    private int minWidths = 60;
+    private Supplier<ISolver> groupSolver = MIPISolver::new;
+
+    /**
+     * Constructs a Decomposition object for the machine setup of the given InputReader.
+     * @param sourceReader the InputReader object to read the setup specs from
+     */
+    public Decomposition(InputReader sourceReader) {
+        HashMap<String, Integer> specs = sourceReader.getSetupSpecs();
+        this.maxLength = specs.get("Larg Max");
+        this.maxKnives = specs.get("Máx. bob/tirada");
+    }
+
+    /**
+     * Sets the number of groups the widths are split into, which is also the number of groups solved
+     * at the same time. Defaults to 2.
+     * @param groups the number of groups
+     */
+    public void setGroups(int groups) {
+        if (groups < 2) {
+            throw new IllegalArgumentException("At least two groups are needed");
+        }
+        this.groups = groups;
+    }
+
+    /**
+     * Sets the share of the demanded length of each group whose cuts are released to the coordinating
+     * pass. Defaults to 0.2.
+     * @param leftoverShare the share of the demanded length, between 0 and 1
+     */
+    public void setLeftoverShare(double leftoverShare) {
+        if (leftoverShare < 0 || leftoverShare > 1) {
+            throw new IllegalArgumentException("The leftover share must be between 0 and 1");
+        }
+        this.leftoverShare = leftoverShare;
+    }
+
+    /**
+     * Sets the number of unique widths from which the order book is decomposed; smaller ones are solved
+     * as a single model. Defaults to 60.
+     * @param minWidths the minimum number of unique widths
+     */
+    public void setMinWidths(int minWidths) {
+        this.minWidths = minWidths;
+    }
+
+    /**
+     * Sets how the solver of each group is created. Each group gets its own solver, since the groups are
+     * solved at the same time. Defaults to a MIPISolver.
+     * @param groupSolver creates the solver of a group
+     */
+    public void setGroupSolver(Supplier<ISolver> groupSolver) {
+        if (groupSolver == null)
+            throw new IllegalArgumentException();
+        this.groupSolver = groupSolver;
+    }
+
+    /**
+     * Tells whether an order book is large enough to be decomposed.
+     * @param widths the number of unique widths
+     * @return true if the order book should be decomposed
+     */
+    public boolean applies(int widths) {
+        return widths >= Math.max(minWidths, groups);
+    }
+
+    /**
+     * Splits the widths into groups. The widths are sorted from the widest fit class to the narrowest and
+     * dealt to the groups in snake order, so every group holds wide widths and the narrow ones that fill
+     * the rest of their coils, and the demanded length is spread about evenly.
+     * @param uniqueLengthList the unique coil lengths
+     * @param uniqueCoilList the demanded amount of each unique coil length
+     * @return the groups, as indexes into the unique length list
+     */
+    public ArrayList<ArrayList<Integer>> partition(ArrayList<Integer> uniqueLengthList, ArrayList<Integer> uniqueCoilList) {
+        ArrayList<Integer> order = new ArrayList<>();
+        for (int i = 0; i < uniqueLengthList.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> fit(a, uniqueLengthList) != fit(b, uniqueLengthList)
+                ? Integer.compare(fit(a, uniqueLengthList), fit(b, uniqueLengthList))
+                : Integer.compare(uniqueLengthList.get(b), uniqueLengthList.get(a)));
+
+        ArrayList<ArrayList<Integer>> partition = new ArrayList<>();
+        int count = Math.min(groups, order.size());
+        for (int g = 0; g < count; g++) {
+            partition.add(new ArrayList<>());
+        }
+        for (int k = 0; k < order.size(); k++) {
+            int round = k / count;
+            int g = round % 2 == 0 ? k % count : count - 1 - k % count;
+            partition.get(g).add(order.get(k));
+        }
+        return partition;
+    }
+
+    /**
+     * Solves the order book group by group and reoptimizes the leftovers.
+     * @param pool the pool of distinct patterns
+     * @param uniqueLengthList the unique coil lengths
+     * @param uniqueCoilList the demanded amount of each unique coil length
+     * @param coordinator solves the model of the leftovers, usually with the solvers of the pipeline
+     * @return the plan, or null if the widths do not split into at least two groups
+     */
+    public Result solve(PatternPool pool, ArrayList<Integer> uniqueLengthList, ArrayList<Integer> uniqueCoilList,
+                        Function<ProblemModel, Result> coordinator) {
+        ArrayList<ArrayList<Integer>> partition = partition(uniqueLengthList, uniqueCoilList);
+        if (partition.size() < 2) {
+            return null;
+        }
+
+        // Build and solve the models of the groups at the same time
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (ArrayList<Integer> group : partition) {
+            tasks.add(() -> groupSolver.get().solve(model(pool, group, uniqueLengthList, uniqueCoilList), null));
+        }
+        ArrayList<Result> groupResults = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(partition.size());
+        try {
+            for (Future<Result> future : executor.invokeAll(tasks)) {
+                groupResults.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The decomposition was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Keep the group plans but their most wasteful cuts
+        LinkedHashMap<ArrayList<Integer>, Long> plan = new LinkedHashMap<>();
+        for (int g = 0; g < partition.size(); g++) {
+            ArrayList<Integer> group = partition.get(g);
+            long groupLength = 0;
+            for (int i : group) {
+                groupLength += (long) uniqueLengthList.get(i) * uniqueCoilList.get(i);
+            }
+
+            ArrayList<Pair<Long, ArrayList<Integer>>> cuts = new ArrayList<>();
+            for (Pair<Double, ArrayList<Integer>> pattern : groupResults.get(g).getPatterns()) {
+                long count = (long) Math.ceil(pattern.getKey() - 1e-9);
+                if (count > 0) {
+                    cuts.add(new Pair<>(count, expand(pattern.getValue(), group, uniqueLengthList.size())));
+                }
+            }
+            cuts.sort((a, b) -> Integer.compare(waste(b.getValue(), uniqueLengthList), waste(a.getValue(), uniqueLengthList)));
+
+            double released = 0;
+            for (Pair<Long, ArrayList<Integer>> cut : cuts) {
+                long count = cut.getKey();
+                int usedLength = maxLength - waste(cut.getValue(), uniqueLengthList);
+                while (count > 0 && released < leftoverShare * groupLength) {
+                    count--;
+                    released += usedLength;
+                }
+                if (count > 0) {
+                    plan.merge(cut.getValue(), count, Long::sum);
+                }
+            }
+        }
+
+        // The coordinating pass covers what the kept cuts leave, with patterns across the groups
+        long[] produced = new long[uniqueLengthList.size()];
+        for (Map.Entry<ArrayList<Integer>, Long> entry : plan.entrySet()) {
+            for (int i = 0; i < produced.length; i++) {
+                produced[i] += entry.getKey().get(i) * entry.getValue();
+            }
+        }
+        ArrayList<Integer> leftovers = new ArrayList<>();
+        ArrayList<Integer> leftoverCoilList = new ArrayList<>(uniqueCoilList);
+        for (int i = 0; i < produced.length; i++) {
+            leftoverCoilList.set(i, (int) Math.max(0, uniqueCoilList.get(i) - produced[i]));
+            if (leftoverCoilList.get(i) > 0) {
+                leftovers.add(i);
+            }
+        }
+        if (!leftovers.isEmpty()) {
+            Result coordinated = coordinator.apply(model(pool, leftovers, uniqueLengthList, leftoverCoilList));
+            for (Pair<Double, ArrayList<Integer>> pattern : coordinated.getPatterns()) {
+                long count = (long) Math.ceil(pattern.getKey() - 1e-9);
+                if (count > 0) {
+                    plan.merge(expand(pattern.getValue(), leftovers, uniqueLengthList.size()), count, Long::sum);
+                }
+            }
+        }
+
+        ArrayList<Pair<Double, ArrayList<Integer>>> rawResult = new ArrayList<>();
+        double waste = 0;
+        for (Map.Entry<ArrayList<Integer>, Long> entry : plan.entrySet()) {
+            rawResult.add(new Pair<>((double) entry.getValue(), entry.getKey()));
+            waste += entry.getValue() * waste(entry.getKey(), uniqueLengthList);
+        }
+        Result result = new Result(UUID.randomUUID().toString(), rawResult, waste);
+        result.setSolverName("Decomposition");
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "groups=" + groups + ",leftoverShare=" + leftoverShare + ",minWidths=" + minWidths;
+    }
+
+    /**
+     * Builds the model of a subset of the widths over the patterns of the pool projected on the subset,
+     * plus the patterns needed to cover every width of the subset.
+     * @param pool the pool of distinct patterns
+     * @param widths the indexes of the widths of the subset
+     * @param uniqueLengthList the unique coil lengths
+     * @param uniqueCoilList the demanded amount of each unique coil length
+     * @return the model, over the widths of the subset in the given order
+     */
+    private ProblemModel model(PatternPool pool, ArrayList<Integer> widths, ArrayList<Integer> uniqueLengthList,
+                               ArrayList<Integer> uniqueCoilList) {
+        ArrayList<Integer> lengthList = new ArrayList<>();
+        ArrayList<Integer> coilList = new ArrayList<>();
+        for (int i : widths) {
+            lengthList.add(uniqueLengthList.get(i));
+            coilList.add(uniqueCoilList.get(i));
+        }
+
+        // Every pattern keeps the coils of the subset, and the pruning completes the room left by the others
+        PatternPool subPool = new PatternPool();
+        for (ArrayList<Integer> pattern : pool.getPatterns()) {
+            ArrayList<Integer> projected = new ArrayList<>();
+            int usedLength = 0;
+            for (int i : widths) {
+                projected.add(pattern.get(i));
+                usedLength += pattern.get(i) * uniqueLengthList.get(i);
+            }
+            subPool.add(projected, maxLength - usedLength);
+        }
+        subPool.coverWidths(lengthList, maxLength, maxKnives);
+        subPool = subPool.pruneDominated(lengthList, maxLength, maxKnives);
+
+        return ProblemModel.of(subPool.getObjectiveCoefficients(), subPool.getPatterns(), lengthList, coilList);
+    }
+
+    /**
+     * Maps a pattern over a subset of the widths back to all the widths.
+     */
+    private static ArrayList<Integer> expand(ArrayList<Integer> pattern, ArrayList<Integer> widths, int size) {
+        ArrayList<Integer> expanded = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            expanded.add(0);
+        }
+        for (int k = 0; k < widths.size(); k++) {
+            expanded.set(widths.get(k), pattern.get(k));
+        }
+        return expanded;
+    }
+
+    /**
+     * Computes the unused length of the coil of a pattern.
+     */
+    private int waste(ArrayList<Integer> pattern, ArrayList<Integer> uniqueLengthList) {
+        int currentLength = 0;
+        for (int i = 0; i < pattern.size(); i++) {
+            currentLength += pattern.get(i) * uniqueLengthList.get(i);
+        }
+        return maxLength - currentLength;
+    }
+
+    /**
+     * Returns how many coils of a width fit in a pattern.
+     */
+    private int fit(int i, ArrayList<Integer> uniqueLengthList) {
+        return Math.min(maxLength / uniqueLengthList.get(i), maxKnives);
+    }
+}
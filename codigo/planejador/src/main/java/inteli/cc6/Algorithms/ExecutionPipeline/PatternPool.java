@@ -0,0 +1,236 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * The PatternPool class holds the distinct patterns handed to the solvers, together with their waste.
+ * Patterns are canonical count vectors over the unique coil length order; identical vectors are only
+ * kept once, so the objective coefficients always stay aligned with the patterns.
+ */
+public class PatternPool {
+    private final ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+    private final ArrayList<Double> wastes = new ArrayList<>();
+    private final HashSet<PatternKey> keys = new HashSet<>();
+
+    /**
+     * Adds a pattern to the pool unless an identical one is already there.
+     * Patterns without any coil are never added, since they cannot cover any demand.
+     * @param pattern the pattern, as counts over the unique length order
+     * @param waste the waste of the pattern
+     * @return true if the pattern was added, false if it was a duplicate or empty
+     */
+    public boolean add(ArrayList<Integer> pattern, double waste) {
+        PatternKey key = new PatternKey(pattern);
+        if (key.isEmpty() || !keys.add(key)) {
+            return false;
+        }
+        patterns.add(pattern);
+        wastes.add(waste);
+        return true;
+    }
+
+    /**
+     * Tells whether an identical pattern is already in the pool.
+     * @param pattern the pattern, as counts over the unique length order
+     * @return true if the pool contains the pattern
+     */
+    public boolean contains(ArrayList<Integer> pattern) {
+        return keys.contains(new PatternKey(pattern));
+    }
+
+    /**
+     * Returns the number of distinct patterns in the pool.
+     * @return the pool size
+     */
+    public int size() {
+        return patterns.size();
+    }
+
+    /**
+     * Returns the distinct patterns, in the order they were added.
+     * @return the patterns
+     */
+    public ArrayList<ArrayList<Integer>> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Returns the waste of each pattern, aligned with getPatterns().
+     * @return the objective coefficients of the pool
+     */
+    public double[] getObjectiveCoefficients() {
+        double[] objectiveCoefficients = new double[wastes.size()];
+        for (int i = 0; i < wastes.size(); i++) {
+            objectiveCoefficients[i] = wastes.get(i);
+        }
+        return objectiveCoefficients;
+    }
+
+    /**
+     * Builds a pool without dominated patterns. A pattern is dominated when another one cuts at
+     * least as many coils of every width; in a covering model it is never better than the other one.
+     * <p>
+     * Infeasible patterns are dropped, and every non-maximal pattern (one that still has room for
+     * another knife within the coil length) is completed by adding the largest coils that fit. A
+     * completed pattern dominates the original one, so demand coverage is preserved. Once all
+     * patterns are maximal no pattern can dominate another: if A dominated B, B plus one of the
+     * extra coils of A would still fit, contradicting the maximality of B. Deduplicating the
+     * completed patterns is therefore enough, which keeps the stage linear in the pool size.
+     * @param uniqueLengthList the unique coil lengths, in the order of the pattern counts
+     * @param maxLength the maximum length of a coil
+     * @param maxKnives the maximum number of coils in a pattern
+     * @return a new pool holding only maximal, non-dominated patterns
+     */
+    public PatternPool pruneDominated(ArrayList<Integer> uniqueLengthList, int maxLength, int maxKnives) {
+        Integer[] order = largestFirst(uniqueLengthList);
+
+        PatternPool pruned = new PatternPool();
+        for (ArrayList<Integer> pattern : patterns) {
+            ArrayList<Integer> completed = new ArrayList<>(pattern);
+            int waste = complete(completed, order, uniqueLengthList, maxLength, maxKnives);
+            if (waste >= 0) {
+                pruned.add(completed, waste);
+            }
+        }
+        return pruned;
+    }
+
+    /**
+     * Finds the widths that no pattern of the pool cuts. The demand of such a width cannot be met,
+     * so any solver would fail on the pool.
+     * @param widths the number of unique coil lengths
+     * @return the indices of the uncovered widths
+     */
+    public ArrayList<Integer> uncoveredWidths(int widths) {
+        boolean[] covered = new boolean[widths];
+        for (ArrayList<Integer> pattern : patterns) {
+            for (int i = 0; i < widths; i++) {
+                covered[i] |= pattern.get(i) > 0;
+            }
+        }
+        ArrayList<Integer> uncovered = new ArrayList<>();
+        for (int i = 0; i < widths; i++) {
+            if (!covered[i]) {
+                uncovered.add(i);
+            }
+        }
+        return uncovered;
+    }
+
+    /**
+     * Adds targeted patterns for every width the pool does not cover: the homogeneous pattern
+     * of the width, and one coil of the width completed with the largest other coils that fit.
+     * @param uniqueLengthList the unique coil lengths, in the order of the pattern counts
+     * @param maxLength the maximum length of a coil
+     * @param maxKnives the maximum number of coils in a pattern
+     * @return the number of patterns added
+     */
+    public int coverWidths(ArrayList<Integer> uniqueLengthList, int maxLength, int maxKnives) {
+        Integer[] order = largestFirst(uniqueLengthList);
+        int added = 0;
+        for (int width : uncoveredWidths(uniqueLengthList.size())) {
+            int length = uniqueLengthList.get(width);
+            if (length > maxLength || maxKnives < 1) {
+                throw new IllegalArgumentException("Width " + length + " does not fit the coil");
+            }
+
+            ArrayList<Integer> homogeneous = new ArrayList<>(Collections.nCopies(uniqueLengthList.size(), 0));
+            homogeneous.set(width, Math.min(maxLength / length, maxKnives));
+            if (add(homogeneous, maxLength - homogeneous.get(width) * length)) {
+                added++;
+            }
+
+            ArrayList<Integer> mixed = new ArrayList<>(Collections.nCopies(uniqueLengthList.size(), 0));
+            mixed.set(width, 1);
+            if (add(mixed, complete(mixed, order, uniqueLengthList, maxLength, maxKnives))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Sorts the widths from the largest to the smallest, the order patterns are completed in.
+     */
+    private static Integer[] largestFirst(ArrayList<Integer> uniqueLengthList) {
+        Integer[] order = new Integer[uniqueLengthList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(uniqueLengthList.get(b), uniqueLengthList.get(a)));
+        return order;
+    }
+
+    /**
+     * Completes a pattern in place by adding the largest coils that still fit.
+     * @return the waste of the completed pattern, or -1 if the pattern is infeasible
+     */
+    private static int complete(ArrayList<Integer> pattern, Integer[] order, ArrayList<Integer> uniqueLengthList,
+                                int maxLength, int maxKnives) {
+        int length = 0;
+        int knives = 0;
+        for (int i = 0; i < pattern.size(); i++) {
+            length += pattern.get(i) * uniqueLengthList.get(i);
+            knives += pattern.get(i);
+        }
+        if (length > maxLength || knives > maxKnives) {
+            return -1;
+        }
+
+        for (int i : order) {
+            int fits = Math.min((maxLength - length) / uniqueLengthList.get(i), maxKnives - knives);
+            if (fits > 0) {
+                pattern.set(i, pattern.get(i) + fits);
+                length += fits * uniqueLengthList.get(i);
+                knives += fits;
+            }
+        }
+        return maxLength - length;
+    }
+
+    /**
+     * Compact hash key of a count vector: four 16 bit counts are packed into each long,
+     * so a key takes a fraction of the memory of the boxed list it stands for.
+     */
+    private static final class PatternKey {
+        private static final int BITS = 16;
+        private static final int PER_WORD = Long.SIZE / BITS;
+
+        private final long[] words;
+        private final int hash;
+
+        PatternKey(ArrayList<Integer> pattern) {
+            words = new long[(pattern.size() + PER_WORD - 1) / PER_WORD];
+            for (int i = 0; i < pattern.size(); i++) {
+                int count = pattern.get(i);
+                if (count < 0 || count >= 1 << BITS) {
+                    throw new IllegalArgumentException("Invalid coil count " + count + " in pattern");
+                }
+                words[i / PER_WORD] |= (long) count << (i % PER_WORD * BITS);
+            }
+            hash = Arrays.hashCode(words);
+        }
+
+        boolean isEmpty() {
+            for (long word : words) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PatternKey && Arrays.equals(words, ((PatternKey) other).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
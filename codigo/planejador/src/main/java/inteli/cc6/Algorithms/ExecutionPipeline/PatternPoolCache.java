@@ -0,0 +1,285 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PatternPoolCache class keeps pattern pools on disk between runs. A pool is keyed by the machine setup,
+ * the coil length and the knife limit, and its patterns are stored by width, so every order book cut on the
+ * same setup shares it: loading keeps the patterns whose widths are all in the order book, whatever their
+ * order. Patterns that were not part of a solution for a while are evicted, and the pool is capped to the least
+ * wasteful patterns.
+ */
+public class PatternPoolCache {
+    /**
+     * The number of cached patterns that must cut every width of an order book for its run to be warm.
+     */
+    public static final int MIN_WARM_PATTERNS = 3;
+
+    private final Path directory;
+    private int maxPatterns = 20000;
+    private long maxAgeMillis = TimeUnit.DAYS.toMillis(30);
+
+    /**
+     * Constructs a PatternPoolCache object storing its pools in the default directory, inside the user home.
+     */
+    public PatternPoolCache() {
+        this(Paths.get(System.getProperty("user.home"), ".planejador", "patterns"));
+    }
+
+    /**
+     * Constructs a PatternPoolCache object storing its pools in the given directory.
+     * @param directory the directory the pool files are written to
+     */
+    public PatternPoolCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the maximum number of patterns kept per pool.
+     * @param maxPatterns the maximum pool size
+     */
+    public void setMaxPatterns(int maxPatterns) {
+        this.maxPatterns = maxPatterns;
+    }
+
+    /**
+     * Sets for how long a pattern that is not part of any solution is kept.
+     * @param maxAgeDays the maximum age in days
+     */
+    public void setMaxAgeDays(int maxAgeDays) {
+        this.maxAgeMillis = TimeUnit.DAYS.toMillis(maxAgeDays);
+    }
+
+    /**
+     * Loads the cached patterns of a machine setup that only use the given widths. Patterns that no longer
+     * fit the coil length or the knife limit are dropped.
+     * @param maxLength the maximum length of a coil
+     * @param maxKnives the maximum number of coils in a pattern
+     * @param uniqueLengthList the unique coil lengths, in the order the patterns must follow
+     * @return the cached patterns, empty if there is no cached pool
+     */
+    public PatternPool load(int maxLength, int maxKnives, ArrayList<Integer> uniqueLengthList) {
+        PatternPool pool = new PatternPool();
+        for (Map.Entry<String, Entry> entry : read(file(maxLength, maxKnives)).entrySet()) {
+            ArrayList<Integer> pattern = parse(entry.getKey(), uniqueLengthList);
+            if (pattern == null) {
+                continue;
+            }
+            int length = 0;
+            int knives = 0;
+            for (int i = 0; i < pattern.size(); i++) {
+                length += pattern.get(i) * uniqueLengthList.get(i);
+                knives += pattern.get(i);
+            }
+            if (length <= maxLength && knives <= maxKnives) {
+                pool.add(pattern, maxLength - length);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Tells whether a cached pool covers an order book well enough for a warm run, that is, whether
+     * every width is cut by at least MIN_WARM_PATTERNS of its patterns. A pool sharing only a few
+     * patterns with the order book must not cut its generation short.
+     * @param pool the cached pool
+     * @param widths the number of unique coil lengths
+     * @return true if the run can be warm
+     */
+    public static boolean isWarm(PatternPool pool, int widths) {
+        int[] patterns = new int[widths];
+        for (ArrayList<Integer> pattern : pool.getPatterns()) {
+            for (int i = 0; i < widths; i++) {
+                if (pattern.get(i) > 0) {
+                    patterns[i]++;
+                }
+            }
+        }
+        for (int count : patterns) {
+            if (count < MIN_WARM_PATTERNS) {
+                return false;
+            }
+        }
+        return widths > 0;
+    }
+
+    /**
+     * Merges a pool into the cached one and writes it back. The patterns of the result are marked as used now.
+     * @param maxLength the maximum length of a coil
+     * @param maxKnives the maximum number of coils in a pattern
+     * @param uniqueLengthList the unique coil lengths, in the order of the pattern counts
+     * @param pool the pool of the current run
+     * @param result the result of the current run, may be null
+     */
+    public void save(int maxLength, int maxKnives, ArrayList<Integer> uniqueLengthList, PatternPool pool,
+                     Result result) {
+        Path file = file(maxLength, maxKnives);
+        LinkedHashMap<String, Entry> entries = read(file);
+        long now = System.currentTimeMillis();
+
+        double[] objectiveCoefficients = pool.getObjectiveCoefficients();
+        for (int i = 0; i < pool.size(); i++) {
+            entries.putIfAbsent(format(pool.getPatterns().get(i), uniqueLengthList),
+                    new Entry(objectiveCoefficients[i], now));
+        }
+        if (result != null) {
+            for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+                Entry entry = entries.get(format(pattern.getValue(), uniqueLengthList));
+                if (entry != null) {
+                    entry.lastUsed = now;
+                }
+            }
+        }
+
+        // Evict the stale patterns, then keep the least wasteful ones
+        ArrayList<Map.Entry<String, Entry>> kept = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (now - entry.getValue().lastUsed <= maxAgeMillis) {
+                kept.add(entry);
+            }
+        }
+        kept.sort(Map.Entry.comparingByValue((a, b) -> Double.compare(a.waste, b.waste)));
+        if (kept.size() > maxPatterns) {
+            kept = new ArrayList<>(kept.subList(0, maxPatterns));
+        }
+
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "pool", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry> entry : kept) {
+                    writer.write(entry.getValue().lastUsed + ";" + entry.getValue().waste + ";" + entry.getKey());
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads a pool file; a missing or unreadable file is an empty pool, and malformed lines are skipped.
+     */
+    private LinkedHashMap<String, Entry> read(Path file) {
+        LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(";");
+                try {
+                    if (fields.length == 3) {
+                        entries.put(fields[2], new Entry(Double.parseDouble(fields[1]), Long.parseLong(fields[0])));
+                    }
+                } catch (NumberFormatException e) {
+                    // a damaged file only loses the line
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the file of the pool of a machine setup.
+     */
+    private Path file(int maxLength, int maxKnives) {
+        String key = maxLength + "|" + maxKnives;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", digest[i]));
+            }
+            return directory.resolve(name + ".pool");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Formats a pattern as width:count pairs, sorted by width, skipping the widths it does not use.
+     */
+    static String format(ArrayList<Integer> pattern, ArrayList<Integer> uniqueLengthList) {
+        ArrayList<Integer> order = new ArrayList<>();
+        for (int i = 0; i < pattern.size(); i++) {
+            if (pattern.get(i) > 0) {
+                order.add(i);
+            }
+        }
+        order.sort((a, b) -> Integer.compare(uniqueLengthList.get(a), uniqueLengthList.get(b)));
+        StringBuilder builder = new StringBuilder();
+        for (int i : order) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(uniqueLengthList.get(i)).append(':').append(pattern.get(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses width:count pairs back into a pattern over the given width order.
+     * @return the pattern, or null if it uses a width that is not in the list, repeats a width, has a
+     * count that is not positive or is malformed
+     */
+    static ArrayList<Integer> parse(String formatted, ArrayList<Integer> uniqueLengthList) {
+        HashMap<Integer, Integer> index = new HashMap<>();
+        for (int i = 0; i < uniqueLengthList.size(); i++) {
+            index.put(uniqueLengthList.get(i), i);
+        }
+        ArrayList<Integer> pattern = new ArrayList<>(Collections.nCopies(uniqueLengthList.size(), 0));
+        try {
+            for (String pair : formatted.split(",", -1)) {
+                String[] fields = pair.split(":");
+                Integer i = fields.length == 2 ? index.get(Integer.parseInt(fields[0])) : null;
+                if (i == null || pattern.get(i) != 0) {
+                    return null;
+                }
+                int count = Integer.parseInt(fields[1]);
+                if (count <= 0) {
+                    return null;
+                }
+                pattern.set(i, count);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return pattern;
+    }
+
+    /**
+     * The waste of a cached pattern and when it was last part of a solution.
+     */
+    private static class Entry {
+        private final double waste;
+        private long lastUsed;
+
+        Entry(double waste, long lastUsed) {
+            this.waste = waste;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
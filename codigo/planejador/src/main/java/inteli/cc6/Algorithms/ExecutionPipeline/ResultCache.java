@@ -0,0 +1,466 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * The ResultCache class keeps the results of previous runs, so an order book that is solved again
+ * with the same machine setup and solver configuration gets its plan back instantly. A result is keyed
+ * by a SHA-256 fingerprint of the sorted demand, the setup specs and the solver configuration. The most
+ * recent results are kept in memory and all of them on disk, each tier evicting the least recently used.
+ * <p>
+ * When there is no exact match, the patterns of the most similar cached order book with the same setup
+ * can seed the run instead. The headers of the files on disk are read once, on first use, into an index
+ * that later lookups and evictions use instead of the directory.
+ */
+public class ResultCache {
+    private final Path directory;
+    private int maxMemoryEntries = 32;
+    private int maxDiskEntries = 500;
+    private double minSimilarity = 0.5;
+
+    // fingerprint to entry, in access order
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxMemoryEntries;
+        }
+    };
+
+    // fingerprint to the header of its file on disk, built on first use
+    private HashMap<String, Header> index = null;
+
+    /**
+     * Constructs a ResultCache object storing its results in the default directory, inside the user home.
+     */
+    public ResultCache() {
+        this(Paths.get(System.getProperty("user.home"), ".planejador", "results"));
+    }
+
+    /**
+     * Constructs a ResultCache object storing its results in the given directory.
+     * @param directory the directory the result files are written to
+     */
+    public ResultCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the maximum number of results kept in memory.
+     * @param maxMemoryEntries the maximum number of results
+     */
+    public synchronized void setMaxMemoryEntries(int maxMemoryEntries) {
+        this.maxMemoryEntries = maxMemoryEntries;
+    }
+
+    /**
+     * Sets the maximum number of results kept on disk.
+     * @param maxDiskEntries the maximum number of results
+     */
+    public synchronized void setMaxDiskEntries(int maxDiskEntries) {
+        this.maxDiskEntries = maxDiskEntries;
+    }
+
+    /**
+     * Sets how similar a cached order book must be for its patterns to seed a run. The similarity is
+     * the sum over the widths of the smaller demand divided by the sum of the larger one.
+     * @param minSimilarity the minimum similarity, between 0 and 1
+     */
+    public synchronized void setMinSimilarity(double minSimilarity) {
+        if (minSimilarity < 0 || minSimilarity > 1) {
+            throw new IllegalArgumentException("The similarity must be between 0 and 1");
+        }
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * Looks up the result of an order book.
+     * @param demandMap the demanded amount of each unique coil length
+     * @param setupSpecs the machine setup specs
+     * @param configuration the solver configuration
+     * @param uniqueLengthList the unique coil lengths, in the order the patterns must follow
+     * @return a copy of the cached result, or null if the order book was not solved before
+     */
+    public synchronized Result get(HashMap<Integer, Integer> demandMap, HashMap<String, Integer> setupSpecs,
+                                   String configuration, ArrayList<Integer> uniqueLengthList) {
+        String setup = setup(setupSpecs, configuration);
+        String demand = demand(demandMap);
+        String fingerprint = fingerprint(setup, demand);
+
+        Entry entry = memory.get(fingerprint);
+        if (entry == null) {
+            Header header = index().get(fingerprint);
+            if (header == null) {
+                return null;
+            }
+            entry = read(header.file);
+            if (entry == null) {
+                index.remove(fingerprint);
+                return null;
+            }
+            memory.put(fingerprint, entry);
+            header.lastUsed = touch(header.file);
+        }
+        // A hash collision would hand back the plan of another order book
+        if (!entry.setup.equals(setup) || !entry.demand.equals(demand)) {
+            return null;
+        }
+
+        ArrayList<Pair<Double, ArrayList<Integer>>> patterns = new ArrayList<>();
+        for (Pair<Double, String> pattern : entry.patterns) {
+            ArrayList<Integer> counts = PatternPoolCache.parse(pattern.getValue(), uniqueLengthList);
+            if (counts == null) {
+                return null;
+            }
+            patterns.add(new Pair<>(pattern.getKey(), counts));
+        }
+        Result result = new Result(UUID.randomUUID().toString(), patterns, entry.waste);
+        result.setLowerBound(entry.lowerBound);
+        result.setSolverName(entry.solverName);
+        return result;
+    }
+
+    /**
+     * Stores the result of an order book in memory and on disk.
+     * @param demandMap the demanded amount of each unique coil length
+     * @param setupSpecs the machine setup specs
+     * @param configuration the solver configuration
+     * @param uniqueLengthList the unique coil lengths, in the order of the pattern counts
+     * @param result the result to store
+     */
+    public synchronized void put(HashMap<Integer, Integer> demandMap, HashMap<String, Integer> setupSpecs,
+                                 String configuration, ArrayList<Integer> uniqueLengthList, Result result) {
+        Entry entry = new Entry(setup(setupSpecs, configuration), demand(demandMap), result.getResultWaste(),
+                result.getLowerBound(), result.getSolverName());
+        for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+            entry.patterns.add(new Pair<>(pattern.getKey(), PatternPoolCache.format(pattern.getValue(), uniqueLengthList)));
+        }
+        String fingerprint = fingerprint(entry.setup, entry.demand);
+        memory.put(fingerprint, entry);
+
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "result", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(entry.setup);
+                writer.newLine();
+                writer.write(entry.demand);
+                writer.newLine();
+                writer.write(entry.waste + ";" + entry.lowerBound + ";" + (entry.solverName == null ? "" : entry.solverName));
+                writer.newLine();
+                for (Pair<Double, String> pattern : entry.patterns) {
+                    writer.write(pattern.getKey() + ";" + pattern.getValue());
+                    writer.newLine();
+                }
+            }
+            Path file = directory.resolve(fingerprint + ".result");
+            HashMap<String, Header> headers = index();
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            headers.put(fingerprint, new Header(file, entry.setup, entry.demand, System.currentTimeMillis()));
+            evict();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Finds the patterns of the cached order book most similar to the given one, with the same setup
+     * and solver configuration. Patterns cutting a width the order book does not have are dropped.
+     * @param demandMap the demanded amount of each unique coil length
+     * @param setupSpecs the machine setup specs
+     * @param configuration the solver configuration
+     * @param uniqueLengthList the unique coil lengths, in the order the patterns must follow
+     * @return the patterns, empty if no cached order book is similar enough
+     */
+    public synchronized ArrayList<ArrayList<Integer>> similarPatterns(HashMap<Integer, Integer> demandMap,
+                                                                      HashMap<String, Integer> setupSpecs,
+                                                                      String configuration,
+                                                                      ArrayList<Integer> uniqueLengthList) {
+        String setup = setup(setupSpecs, configuration);
+        TreeMap<Integer, Integer> demand = new TreeMap<>(demandMap);
+
+        // The memory tier holds the patterns already, the disk tier is searched through its index
+        Entry best = null;
+        double bestSimilarity = minSimilarity;
+        for (Entry entry : memory.values()) {
+            double similarity = entry.setup.equals(setup) ? similarity(demand, parseDemand(entry.demand)) : 0;
+            if (similarity >= bestSimilarity) {
+                best = entry;
+                bestSimilarity = similarity;
+            }
+        }
+        Header bestHeader = null;
+        for (Header header : index().values()) {
+            double similarity = header.setup.equals(setup) ? similarity(demand, header.amounts()) : 0;
+            if (similarity > bestSimilarity) {
+                bestHeader = header;
+                bestSimilarity = similarity;
+            }
+        }
+        if (bestHeader != null) {
+            Entry entry = read(bestHeader.file);
+            if (entry != null) {
+                best = entry;
+            }
+        }
+
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        if (best != null) {
+            for (Pair<Double, String> pattern : best.patterns) {
+                ArrayList<Integer> counts = PatternPoolCache.parse(pattern.getValue(), uniqueLengthList);
+                if (counts != null) {
+                    patterns.add(counts);
+                }
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Removes the least recently used result files beyond the disk limit.
+     */
+    private void evict() throws IOException {
+        if (index.size() <= maxDiskEntries) {
+            return;
+        }
+        ArrayList<Map.Entry<String, Header>> headers = new ArrayList<>(index.entrySet());
+        headers.sort((a, b) -> Long.compare(a.getValue().lastUsed, b.getValue().lastUsed));
+        for (int i = 0; i < headers.size() - maxDiskEntries; i++) {
+            Files.deleteIfExists(headers.get(i).getValue().file);
+            index.remove(headers.get(i).getKey());
+        }
+    }
+
+    /**
+     * Returns the index of the result files on disk, reading their headers on the first call.
+     */
+    private HashMap<String, Header> index() {
+        if (index != null) {
+            return index;
+        }
+        index = new HashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return index;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.result")) {
+            for (Path file : stream) {
+                Header header = readHeader(file);
+                if (header != null) {
+                    String name = file.getFileName().toString();
+                    index.put(name.substring(0, name.length() - ".result".length()), header);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return index;
+    }
+
+    /**
+     * Reads the setup and demand lines of a result file; an unreadable file has no header.
+     */
+    private static Header readHeader(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String setup = reader.readLine();
+            String demand = reader.readLine();
+            if (setup == null || demand == null) {
+                return null;
+            }
+            return new Header(file, setup, demand, Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Reads a result file; a missing or unreadable file is no result.
+     */
+    private static Entry read(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String setup = reader.readLine();
+            String demand = reader.readLine();
+            if (setup == null || demand == null) {
+                return null;
+            }
+
+            String[] fields = reader.readLine().split(";", -1);
+            Entry entry = new Entry(setup, demand, Double.parseDouble(fields[0]), Double.parseDouble(fields[1]),
+                    fields[2].isEmpty() ? null : fields[2]);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] pattern = line.split(";");
+                if (pattern.length == 2) {
+                    entry.patterns.add(new Pair<>(Double.parseDouble(pattern[0]), pattern[1]));
+                }
+            }
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Marks a result file as just used, so the disk eviction also keeps it in the next sessions.
+     * @return the time it was marked with
+     */
+    private static long touch(Path file) {
+        long now = System.currentTimeMillis();
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return now;
+    }
+
+    /**
+     * Formats the setup specs, sorted by name, followed by the solver configuration.
+     */
+    private static String setup(HashMap<String, Integer> setupSpecs, String configuration) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Integer> spec : new TreeMap<>(setupSpecs).entrySet()) {
+            builder.append(spec.getKey()).append('=').append(spec.getValue()).append(',');
+        }
+        return builder.append('|').append(configuration).toString().replace('\n', ' ');
+    }
+
+    /**
+     * Formats the demand as width:amount pairs, sorted by width.
+     */
+    private static String demand(HashMap<Integer, Integer> demandMap) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Integer, Integer> width : new TreeMap<>(demandMap).entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(width.getKey()).append(':').append(width.getValue());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Compares two demands: the sum over the widths of the smaller amount divided by the sum of the larger one.
+     */
+    private static double similarity(TreeMap<Integer, Integer> demand, HashMap<Integer, Integer> other) {
+        long shared = 0;
+        long total = 0;
+        for (Map.Entry<Integer, Integer> width : demand.entrySet()) {
+            int amount = other.getOrDefault(width.getKey(), 0);
+            shared += Math.min(width.getValue(), amount);
+            total += Math.max(width.getValue(), amount);
+        }
+        for (Map.Entry<Integer, Integer> width : other.entrySet()) {
+            if (!demand.containsKey(width.getKey())) {
+                total += width.getValue();
+            }
+        }
+        return total == 0 ? 0 : (double) shared / total;
+    }
+
+    /**
+     * Parses width:amount pairs back into a demand; malformed pairs are skipped.
+     */
+    private static HashMap<Integer, Integer> parseDemand(String formatted) {
+        HashMap<Integer, Integer> demand = new HashMap<>();
+        for (String pair : formatted.split(",")) {
+            String[] fields = pair.split(":");
+            try {
+                if (fields.length == 2) {
+                    demand.put(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
+                }
+            } catch (NumberFormatException e) {
+                // a damaged file only loses the pair
+            }
+        }
+        return demand;
+    }
+
+    /**
+     * Hashes a setup and demand into the name of their result.
+     */
+    private static String fingerprint(String setup, String demand) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((setup + "\n" + demand).getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A cached result, with its patterns stored by width.
+     */
+    private static class Entry {
+        private final String setup;
+        private final String demand;
+        private final double waste;
+        private final double lowerBound;
+        private final String solverName;
+        private final ArrayList<Pair<Double, String>> patterns = new ArrayList<>();
+
+        Entry(String setup, String demand, double waste, double lowerBound, String solverName) {
+            this.setup = setup;
+            this.demand = demand;
+            this.waste = waste;
+            this.lowerBound = lowerBound;
+            this.solverName = solverName;
+        }
+    }
+
+    /**
+     * The setup and demand of a result file on disk and when it was last used.
+     */
+    private static class Header {
+        private final Path file;
+        private final String setup;
+        private final String demand;
+        private long lastUsed;
+        private HashMap<Integer, Integer> amounts = null;
+
+        Header(Path file, String setup, String demand, long lastUsed) {
+            this.file = file;
+            this.setup = setup;
+            this.demand = demand;
+            this.lastUsed = lastUsed;
+        }
+
+        /**
+         * Returns the demand of the file, parsed on the first call.
+         */
+        HashMap<Integer, Integer> amounts() {
+            if (amounts == null) {
+                amounts = parseDemand(demand);
+            }
+            return amounts;
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package inteli.cc6.Algorithms.ExecutionPipeline;
 
+import inteli.cc6.Algorithms.PatternGenerators.Generators.FirstFitDecreasingIPatternGenerator;
 import inteli.cc6.Algorithms.PatternGenerators.IPatternGenerator;
 import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Algorithms.Solvers.Solver.GlopISolver;
+import inteli.cc6.Algorithms.Solvers.Solver.MIPISolver;
+import inteli.cc6.Algorithms.Solvers.Solver.RoundingISolver;
 import inteli.cc6.InputReader.InputReader;
 import inteli.cc6.Models.Result;
 import org.apache.commons.math3.util.Pair;
 
 import javax.swing.*;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * The SolverPipeline class represents a pipeline of solvers that can be used to solve an optimization problem.
@@ -16,18 +32,65 @@ import java.util.HashMap;
  * and solves the optimization problem using each solver in the ISolvers array.
  */
 public class SolverPipeline {
+    /**
+     * Ready-made solver chains. FAST rounds and repairs the linear relaxation and answers in
+     * milliseconds with a known gap; EXACT solves the relaxation and then the integer problem
+     * over its patterns with SCIP.
+     */
+    public enum Profile {
+        FAST,
+        EXACT
+    }
+
     private final InputReader sourceReader;
     private final IPatternGenerator IPatternGenerator;
     private JProgressBar progressBar = null;
     private ArrayList<ISolver> ISolvers = new ArrayList<>();
     private final int maxLength;
+    private final int maxKnives;
 
     private int progress = 0;
     private int maxProgress = 0;
 
+    // start and length of the current time-budgeted run, the progress then follows the clock
+    private long budgetStart = 0;
+    private long budgetMillis = 0;
+    private double generationShare = 0.4;
+
+    private int threads = 1;
+    private Long seed = null;
+
     public boolean retryOnFailure = false;
     public int maxRetries = 10;
 
+    private boolean columnGeneration = false;
+    private boolean dominancePruning = true;
+
+    private boolean adaptiveGeneration = false;
+    private int plateauRounds = 3;
+    private double minNewPatternRate = 0.02;
+    private double minBoundImprovement = 0.001;
+
+    // solves the linear relaxation that measures the progress of the adaptive generation
+    private final GlopISolver relaxationSolver = new GlopISolver();
+
+    private PatternPoolCache patternCache = null;
+    private double warmFraction = 0.1;
+
+    private ResultCache resultCache = null;
+    private String solverConfiguration = "";
+
+    private Decomposition decomposition = null;
+
+    // number of cached patterns given to the generator as seeds on a warm run
+    private static final int WARM_SEEDS = 50;
+
+    // number of batches the pattern generation is split into, for progress reporting
+    private static final int GENERATION_BATCHES = 20;
+
+    // largest number of patterns, per thread, generated in a round of a time-budgeted run
+    private static final int BUDGET_ROUND_SIZE = 100;
+
     /**
      * Constructs a SolverPipeline object with the given InputReader and IPatternGenerator objects.
      * @param sourceReader the InputReader object to read the input data from
@@ -37,6 +100,7 @@ public class SolverPipeline {
         this.sourceReader = sourceReader;
         this.IPatternGenerator = IPatternGenerator;
         this.maxLength = sourceReader.getSetupSpecs().get("Larg Max");
+        this.maxKnives = sourceReader.getSetupSpecs().get("Máx. bob/tirada");
     }
 
     /**
@@ -48,7 +112,23 @@ public class SolverPipeline {
     }
 
     /**
-     * Solves the optimization problem using the given ISolver object and Result object.
+     * Replaces the solvers of the pipeline by the chain of a profile.
+     * @param profile the profile to use
+     */
+    public void setProfile(Profile profile) {
+        this.ISolvers.clear();
+        if (profile == Profile.FAST) {
+            addSolver(new RoundingISolver());
+        } else {
+            addSolver(new GlopISolver());
+            addSolver(new MIPISolver());
+        }
+    }
+
+    /**
+     * Solves the optimization problem using the given ISolver object and Result object. The previous
+     * result, rounded up, is handed to the solver as a starting solution: rounding up a covering plan
+     * keeps it covering, so the start is always feasible.
      * @param ISolver the ISolver object to use to solve the optimization problem
      * @param result the Result object to use to calculate the objective coefficients and patterns
      * @param uniqueLengthList the list of unique coil lengths
@@ -59,6 +139,7 @@ public class SolverPipeline {
         // Calculate the objective coefficients and patterns for the given Result object
         ArrayList<Pair<Double, ArrayList<Integer>>> resultPatterns = result.getPatterns();
         double[] objectiveCoefficients = new double[resultPatterns.size()];
+        double[] startingSolution = new double[resultPatterns.size()];
         ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
 
         for (int i = 0; i < resultPatterns.size(); i++) {
@@ -68,11 +149,121 @@ public class SolverPipeline {
             }
 
             objectiveCoefficients[i] = maxLength - currentLength;
+            startingSolution[i] = Math.ceil(resultPatterns.get(i).getKey() - 1e-9);
             patterns.add(resultPatterns.get(i).getValue());
         }
 
         // Solve the optimization problem using the calculated objective coefficients, patterns, and unique coil lengths and amounts
-        return ISolver.solve(objectiveCoefficients, patterns, uniqueLengthList, uniqueCoilList);
+        ProblemModel model = ProblemModel.of(objectiveCoefficients, patterns, uniqueLengthList, uniqueCoilList);
+        return ISolver.solve(model, startingSolution);
+    }
+
+    /**
+     * Enables or disables the column generation mode. When enabled, the pattern pool is
+     * built by pricing new patterns against the dual prices of the linear relaxation
+     * instead of being generated up front by the IPatternGenerator.
+     * @param columnGeneration true to build the pool with column generation
+     */
+    public void setColumnGeneration(boolean columnGeneration) {
+        this.columnGeneration = columnGeneration;
+    }
+
+    /**
+     * Enables or disables the dominance pruning stage, which completes non-maximal patterns
+     * and drops infeasible and dominated ones before solving. Enabled by default.
+     * @param dominancePruning true to prune the pool before solving
+     */
+    public void setDominancePruning(boolean dominancePruning) {
+        this.dominancePruning = dominancePruning;
+    }
+
+    /**
+     * Enables or disables the adaptive generation mode. When enabled, patterns are generated in
+     * rounds and the generation stops early once the rounds stop paying off: a round is stale when
+     * it adds few new non-dominated patterns and barely improves the GLOP linear relaxation bound of the
+     * pool. The iterations given to run remain the upper limit.
+     * @param adaptiveGeneration true to stop the generation when it reaches a plateau
+     */
+    public void setAdaptiveGeneration(boolean adaptiveGeneration) {
+        this.adaptiveGeneration = adaptiveGeneration;
+    }
+
+    /**
+     * Configures when the adaptive generation reaches a plateau.
+     * @param plateauRounds the number of consecutive stale rounds that stops the generation
+     * @param minNewPatternRate the fraction of a round that must be new non-dominated patterns for it not to be stale
+     * @param minBoundImprovement the relative improvement of the bound that keeps a round from being stale
+     */
+    public void setPlateau(int plateauRounds, double minNewPatternRate, double minBoundImprovement) {
+        if (plateauRounds < 1) {
+            throw new IllegalArgumentException("At least one round is needed to detect a plateau");
+        }
+        this.plateauRounds = plateauRounds;
+        this.minNewPatternRate = minNewPatternRate;
+        this.minBoundImprovement = minBoundImprovement;
+    }
+
+    /**
+     * Sets the on-disk cache the pattern pool is loaded from at the start of a run and written back to
+     * at the end. When the cached pool of the current machine setup cuts every width often enough, the run is
+     * warm: only a fraction of the iterations is generated. The best cached patterns always seed the generation.
+     * @param patternCache the pattern pool cache, or null to always generate from scratch
+     */
+    public void setPatternCache(PatternPoolCache patternCache) {
+        this.patternCache = patternCache;
+    }
+
+    /**
+     * Sets the cache of previous results. A run of an order book already solved with the same setup specs,
+     * solvers, seed and run argument returns the cached plan right away; otherwise the patterns of the most
+     * similar cached order book are added to the starting pool, making the run warm. Unseeded runs share
+     * one entry per order book, so a new unseeded run returns the first plan instead of searching again.
+     * @param resultCache the result cache, or null to always solve
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Sets the decomposition stage. When set and the order book has enough widths, the pool is solved
+     * group by group instead of as one model, and the solvers of the pipeline only solve the leftovers
+     * of the groups. If the decomposition fails, the pool is solved as one model.
+     * @param decomposition the decomposition stage, or null to always solve one model
+     */
+    public void setDecomposition(Decomposition decomposition) {
+        this.decomposition = decomposition;
+    }
+
+    /**
+     * Describes the settings of the solvers that the pipeline cannot see, such as gaps and thread counts,
+     * so that results solved with other settings are not taken from the result cache.
+     * @param solverConfiguration the description of the solver settings
+     */
+    public void setSolverConfiguration(String solverConfiguration) {
+        this.solverConfiguration = solverConfiguration == null ? "" : solverConfiguration;
+    }
+
+    /**
+     * Sets the fraction of the iterations generated on a warm run. Defaults to 0.1.
+     * @param warmFraction the fraction of the iterations, between 0 and 1
+     */
+    public void setWarmFraction(double warmFraction) {
+        if (warmFraction < 0 || warmFraction > 1) {
+            throw new IllegalArgumentException("The warm fraction must be between 0 and 1");
+        }
+        this.warmFraction = warmFraction;
+    }
+
+    /**
+     * Sets the share of the budget of a time-budgeted run spent on pattern generation. Defaults to 0.4;
+     * the rest is left to the solvers.
+     * @param generationShare the share of the budget, between 0 and 1
+     */
+    public void setGenerationShare(double generationShare) {
+        if (generationShare < 0 || generationShare > 1) {
+            throw new IllegalArgumentException("The generation share must be between 0 and 1");
+        }
+        this.generationShare = generationShare;
     }
 
     /**
@@ -84,72 +275,569 @@ public class SolverPipeline {
     }
 
     /**
-     * Generates patterns and their corresponding waste values.
+     * Sets the number of threads used to generate patterns. The requested patterns are
+     * split into one shard per thread, each with its own random number generator.
+     * @param threads the number of generation threads, 1 to generate on the calling thread
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the seed the random number generators of the generation shards are derived from,
+     * making the generated pool reproducible.
+     * @param seed the base seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates patterns and their corresponding waste values. The iterations are split
+     * into shards that run concurrently, and the shards are merged in order, so the
+     * result only depends on the seed and not on thread scheduling.
      * @param iterations the number of patterns to generate
-     * @param objectiveCoefficients the array to store the waste values in
-     * @return the list of generated patterns
+     * @param batches the number of batches each shard requests its patterns in
+     * @param seeds known good patterns handed to the generator
+     * @param shardSeeds the source of the seeds of the shards
+     * @return the generated patterns and their waste, which may be fewer than iterations if the generator runs out of patterns
      */
-    private ArrayList<ArrayList<Integer>> generatePatterns(int iterations, double[] objectiveCoefficients) {
-        // Generate patterns and their corresponding waste values
-        ArrayList<ArrayList<Integer>> generatedPatterns = new ArrayList<>();
-        for (int i = 0; i < iterations; i++) {
-            Pair<ArrayList<Integer>, Integer> generatedPatternPair = IPatternGenerator.generatePattern();
-            ArrayList<Integer> pattern = generatedPatternPair.getKey();
-            double waste = generatedPatternPair.getValue();
+    private ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int iterations, int batches,
+                                                                          List<ArrayList<Integer>> seeds,
+                                                                          SplittableRandom shardSeeds) {
+        int shards = Math.max(1, Math.min(threads, iterations));
+
+        ArrayList<Callable<ArrayList<Pair<ArrayList<Integer>, Integer>>>> tasks = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            // Spread the remainder over the first shards
+            int shardIterations = iterations / shards + (shard < iterations % shards ? 1 : 0);
+            Random random = new Random(shardSeeds.nextLong());
+            tasks.add(() -> generateShard(shardIterations, batches, random, seeds));
+        }
+
+        ArrayList<ArrayList<Pair<ArrayList<Integer>, Integer>>> shardResults = new ArrayList<>();
+        if (shards == 1) {
+            try {
+                shardResults.add(tasks.get(0).call());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(shards);
+            try {
+                for (Future<ArrayList<Pair<ArrayList<Integer>, Integer>>> future : executor.invokeAll(tasks)) {
+                    shardResults.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Pattern generation was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
 
-            objectiveCoefficients[i] = waste;
-            generatedPatterns.add(pattern);
-            setProgress(progress + 1);
+        // Merge the shards in order
+        ArrayList<Pair<ArrayList<Integer>, Integer>> generatedPatterns = new ArrayList<>();
+        for (ArrayList<Pair<ArrayList<Integer>, Integer>> shardResult : shardResults) {
+            generatedPatterns.addAll(shardResult);
         }
         return generatedPatterns;
     }
 
     /**
-     * Sets the progress of the pipeline.
-     * @param value the value to set the progress to
+     * Removes the duplicated patterns before solving. Generators often return the same
+     * count vector many times, and every copy would otherwise become a separate column.
+     * @param pool the pool the patterns are added to
+     * @param generatedPatterns the generated patterns and their waste
+     * @return the pool of distinct patterns, with the waste kept aligned
+     */
+    private PatternPool deduplicate(PatternPool pool, ArrayList<Pair<ArrayList<Integer>, Integer>> generatedPatterns) {
+        for (Pair<ArrayList<Integer>, Integer> generatedPatternPair : generatedPatterns) {
+            pool.add(generatedPatternPair.getKey(), generatedPatternPair.getValue());
+        }
+        return pool;
+    }
+
+    /**
+     * Generates the patterns of one shard. Patterns are requested from the IPatternGenerator
+     * in batches, so one generator run yields many patterns.
+     * @param iterations the number of patterns to generate in this shard
+     * @param batches the number of batches the patterns are requested in
+     * @param random the random number generator owned by this shard
+     * @param seeds known good patterns handed to the generator
+     * @return the generated patterns and their waste
      */
-    private void setProgress(int value) {
-        this.progress = value;
-        float percentage = (float) progress / (float) maxProgress;
+    private ArrayList<Pair<ArrayList<Integer>, Integer>> generateShard(int iterations, int batches, Random random,
+                                                                        List<ArrayList<Integer>> seeds) {
+        ArrayList<Pair<ArrayList<Integer>, Integer>> generatedPatterns = new ArrayList<>();
+        int batchSize = Math.max(1, (iterations + batches - 1) / batches);
+        while (generatedPatterns.size() < iterations) {
+            int count = Math.min(batchSize, iterations - generatedPatterns.size());
+            ArrayList<Pair<ArrayList<Integer>, Integer>> batch = IPatternGenerator.generatePatterns(count, random, seeds);
+            if (batch.isEmpty()) {
+                break;
+            }
+            generatedPatterns.addAll(batch);
+            addProgress(batch.size());
+        }
+        return generatedPatterns;
+    }
+
+    /**
+     * Advances the progress of the pipeline. Safe to call from the generation threads.
+     * @param amount the number of steps completed
+     */
+    private synchronized void addProgress(int amount) {
+        this.progress += amount;
+        int percentage = budgetMillis > 0
+                ? (int) Math.min(100, (System.currentTimeMillis() - budgetStart) * 100 / budgetMillis)
+                : Math.round((float) progress / (float) maxProgress * 100);
         if (progressBar != null) {
-            progressBar.setValue(Math.round(percentage * 100));
+            SwingUtilities.invokeLater(() -> progressBar.setValue(percentage));
         }
     }
 
     /**
      * Runs the pipeline to solve the optimization problem.
-     * @param iterations the number of patterns to generate
+     * @param iterations the number of patterns to generate, or the maximum number of priced columns in column generation mode
      * @return the Result object containing the solution to the optimization problem
      */
     public Result run(int iterations) {
-        boolean success = false;
-
         try {
+            this.budgetMillis = 0;
+            this.progress = 0;
             this.maxProgress = iterations + ISolvers.size();
 
+            HashMap<Integer, Integer> demandMap = sourceReader.getUniqueCoilLengthsAndAmounts();
+            ArrayList<Integer> uniqueLengthList = new ArrayList<>(demandMap.keySet());
+            String configuration = configuration("iterations=" + iterations);
+            Result stored = resultCache != null
+                    ? resultCache.get(demandMap, sourceReader.getSetupSpecs(), configuration, uniqueLengthList)
+                    : null;
+            if (stored != null) {
+                addProgress(maxProgress);
+                return stored;
+            }
+
+            if (columnGeneration) {
+                Result result = runColumnGeneration(iterations);
+                storeResult(configuration, uniqueLengthList, result);
+                return result;
+            }
+
+            PatternPool cached = patternCache != null
+                    ? patternCache.load(maxLength, maxKnives, uniqueLengthList)
+                    : new PatternPool();
+            addSimilarPatterns(cached, configuration, uniqueLengthList);
+
+            // A warm run only tops up a cached pool covering the order book; otherwise the cached patterns are only seeds
+            List<ArrayList<Integer>> seeds = bestPatterns(cached, WARM_SEEDS);
+            if (PatternPoolCache.isWarm(cached, uniqueLengthList.size())) {
+                iterations = Math.max(1, (int) Math.ceil(iterations * warmFraction));
+                this.maxProgress = iterations + ISolvers.size();
+            } else if (cached.size() > 0) {
+                Logger.getLogger(SolverPipeline.class.getName()).log(Level.INFO,
+                        "The {0} cached patterns do not cover the order book, generating all {1} patterns",
+                        new Object[]{cached.size(), iterations});
+            }
+
             // Generate patterns and their corresponding waste values
-            double[] objectiveCoefficients = new double[iterations];
-            ArrayList<ArrayList<Integer>> generatedPatterns = generatePatterns(iterations, objectiveCoefficients);
+            SplittableRandom shardSeeds = new SplittableRandom(seed != null ? seed : System.nanoTime());
+            PatternPool pool;
+            if (adaptiveGeneration) {
+                pool = generateAdaptively(iterations, seeds, cached, shardSeeds);
+            } else {
+                ArrayList<Pair<ArrayList<Integer>, Integer>> generatedPatterns =
+                        generatePatterns(iterations, GENERATION_BATCHES, seeds, shardSeeds);
+                pool = deduplicate(cached, generatedPatterns);
+            }
+
+            // A width no pattern cuts would make every solver fail
+            pool.coverWidths(uniqueLengthList, maxLength, maxKnives);
+            if (dominancePruning) {
+                pool = pool.pruneDominated(uniqueLengthList, maxLength, maxKnives);
+            }
+
+            Result result = null;
+            if (decomposition != null && decomposition.applies(uniqueLengthList.size())) {
+                try {
+                    result = decomposition.solve(pool, uniqueLengthList, new ArrayList<>(demandMap.values()), this::solveModel);
+                } catch (RuntimeException e) {
+                    // The monolithic model below still gets its chance
+                    e.printStackTrace();
+                }
+            }
+            if (result == null) {
+                result = solveWithRetries(pool, iterations, shardSeeds);
+            }
+            if (patternCache != null) {
+                patternCache.save(maxLength, maxKnives, uniqueLengthList, pool, result);
+            }
+            storeResult(configuration, uniqueLengthList, result);
+            return result;
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Solves the optimization problem over a pattern pool. When retryOnFailure is set and a solver
+     * fails, the pool is augmented with a batch of fresh patterns, seeded with its least wasteful
+     * ones, and solved again, up to maxRetries times, instead of starting the run over.
+     * @param pool the pool of distinct patterns, augmented in place on retries
+     * @param iterations the number of patterns generated for the pool
+     * @param shardSeeds the source of the seeds of the generation shards
+     * @return the Result object containing the solution to the optimization problem
+     */
+    private Result solveWithRetries(PatternPool pool, int iterations, SplittableRandom shardSeeds) {
+        ArrayList<Integer> uniqueLengthList = new ArrayList<>(sourceReader.getUniqueCoilLengthsAndAmounts().keySet());
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return solvePatterns(pool);
+            } catch (RuntimeException e) {
+                if (!retryOnFailure || attempt >= maxRetries) {
+                    throw e;
+                }
+                e.printStackTrace();
+
+                int batch = Math.max(1, iterations / GENERATION_BATCHES);
+                synchronized (this) {
+                    this.maxProgress += batch + ISolvers.size();
+                }
+                deduplicate(pool, generatePatterns(batch, 1, bestPatterns(pool, WARM_SEEDS), shardSeeds));
+                pool.coverWidths(uniqueLengthList, maxLength, maxKnives);
+            }
+        }
+    }
+
+    /**
+     * Picks the least wasteful patterns of a pool.
+     * @param pool the pool of distinct patterns
+     * @param count the number of patterns to pick
+     * @return the patterns, from the least wasteful
+     */
+    private static List<ArrayList<Integer>> bestPatterns(PatternPool pool, int count) {
+        double[] objectiveCoefficients = pool.getObjectiveCoefficients();
+        ArrayList<Integer> order = new ArrayList<>();
+        for (int i = 0; i < pool.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(objectiveCoefficients[a], objectiveCoefficients[b]));
+
+        ArrayList<ArrayList<Integer>> best = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, order.size()); i++) {
+            best.add(pool.getPatterns().get(order.get(i)));
+        }
+        return best;
+    }
+
+    /**
+     * Runs the pipeline within a fixed time budget. A first-fit decreasing plan is built right away as
+     * the incumbent; patterns are then generated until the generation share of the budget is spent, and
+     * the solvers get the rest, each with a time limit set to the time left. Every integral plan better
+     * than the incumbent replaces it, and the incumbent is returned when the deadline hits or a solver
+     * fails. The lower bound attached to it is the one the first solver proves over the whole pool, such
+     * as the GLOP relaxation, since the later solvers only see the patterns of the previous result.
+     * @param budget the wall-clock budget of the run
+     * @return the best Result found within the budget
+     */
+    public Result run(Duration budget) {
+        try {
+            this.budgetStart = System.currentTimeMillis();
+            this.budgetMillis = Math.max(1, budget.toMillis());
+            this.progress = 0;
+            long deadline = budgetStart + budgetMillis;
+            long generationDeadline = budgetStart + (long) (budgetMillis * generationShare);
 
-            // Retrieve the unique coil lengths and amounts from the source reader
             HashMap<Integer, Integer> demandMap = sourceReader.getUniqueCoilLengthsAndAmounts();
             ArrayList<Integer> uniqueLengthList = new ArrayList<>(demandMap.keySet());
             ArrayList<Integer> uniqueCoilList = new ArrayList<>(demandMap.values());
+            String configuration = configuration("budget=" + budgetMillis);
+            Result stored = resultCache != null
+                    ? resultCache.get(demandMap, sourceReader.getSetupSpecs(), configuration, uniqueLengthList)
+                    : null;
+            if (stored != null) {
+                return stored;
+            }
 
-            // Solve the optimization problem using each solver in the ISolvers array
+            Result incumbent = new FirstFitDecreasingIPatternGenerator(sourceReader).solve();
+
+            PatternPool pool = patternCache != null
+                    ? patternCache.load(maxLength, maxKnives, uniqueLengthList)
+                    : new PatternPool();
+            addSimilarPatterns(pool, configuration, uniqueLengthList);
+            List<ArrayList<Integer>> seeds = bestPatterns(pool, WARM_SEEDS);
+
+            // The patterns of the incumbent make sure the pool covers the demand
+            for (Pair<Double, ArrayList<Integer>> pattern : incumbent.getPatterns()) {
+                pool.add(pattern.getValue(), waste(pattern.getValue(), uniqueLengthList));
+            }
+
+            // Each round is sized from the speed of the previous one, so the last round ends by the deadline
+            SplittableRandom shardSeeds = new SplittableRandom(seed != null ? seed : System.nanoTime());
+            int roundSize = threads;
+            while (roundSize > 0 && System.currentTimeMillis() < generationDeadline) {
+                long roundStart = System.currentTimeMillis();
+                ArrayList<Pair<ArrayList<Integer>, Integer>> round = generatePatterns(roundSize, 1, seeds, shardSeeds);
+                if (round.isEmpty()) {
+                    break;
+                }
+                deduplicate(pool, round);
+
+                long elapsed = Math.max(1, System.currentTimeMillis() - roundStart);
+                long left = generationDeadline - System.currentTimeMillis();
+                roundSize = (int) Math.min(BUDGET_ROUND_SIZE * threads, roundSize * left / elapsed);
+            }
+            if (dominancePruning) {
+                pool = pool.pruneDominated(uniqueLengthList, maxLength, maxKnives);
+            }
+
+            ProblemModel model = ProblemModel.of(pool.getObjectiveCoefficients(), pool.getPatterns(), uniqueLengthList, uniqueCoilList);
             Result result = null;
+            // Only the first solver sees the whole pool, the later ones solve the patterns of the previous result
+            double poolBound = Double.NaN;
             for (ISolver ISolver : ISolvers) {
-                if (result != null) {
-                    result = solveFromResult(ISolver, result, uniqueLengthList, uniqueCoilList);
-                } else {
-                    result = ISolver.solve(objectiveCoefficients, generatedPatterns, uniqueLengthList, uniqueCoilList);
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                long timeLimit = ISolver.getTimeLimit();
+                ISolver.setTimeLimit(timeLimit > 0 ? Math.min(timeLimit, remaining) : remaining);
+                try {
+                    if (result != null) {
+                        result = solveFromResult(ISolver, result, uniqueLengthList, uniqueCoilList);
+                    } else {
+                        result = ISolver.solve(model, null);
+                        poolBound = result.getLowerBound();
+                    }
+                } catch (RuntimeException e) {
+                    // Out of time or no solution: the incumbent stands
+                    e.printStackTrace();
+                    break;
+                } finally {
+                    ISolver.setTimeLimit(timeLimit);
+                }
+                addProgress(1);
+
+                // Only integral plans can replace the incumbent, relaxations just feed the next solver
+                if (isIntegral(result) && result.getResultWaste() <= incumbent.getResultWaste()) {
+                    incumbent = result;
                 }
-                setProgress(progress + 1);
             }
-            return result;
+
+            // The bound of a restricted model proves nothing about the pool, only the bound over the whole pool is reported
+            incumbent.setLowerBound(Double.isNaN(poolBound) ? Double.NaN : Math.min(poolBound, incumbent.getResultWaste()));
+
+            if (patternCache != null) {
+                patternCache.save(maxLength, maxKnives, uniqueLengthList, pool, incumbent);
+            }
+            storeResult(configuration, uniqueLengthList, incumbent);
+            return incumbent;
         } catch (Exception e) {
             e.printStackTrace();
             throw e;
+        } finally {
+            this.budgetMillis = 0;
+        }
+    }
+
+    /**
+     * Describes everything besides the order book that decides the result of a run, for the result cache.
+     * @param run the argument of the run
+     * @return the configuration of the run
+     */
+    private String configuration(String run) {
+        StringBuilder builder = new StringBuilder(run);
+        builder.append(";columnGeneration=").append(columnGeneration)
+                .append(";dominancePruning=").append(dominancePruning)
+                .append(";adaptiveGeneration=").append(adaptiveGeneration)
+                .append(";seed=").append(seed)
+                .append(";decomposition=").append(decomposition);
+        for (ISolver ISolver : ISolvers) {
+            builder.append(';').append(ISolver.getClass().getSimpleName()).append('@').append(ISolver.getTimeLimit());
+        }
+        return builder.append(';').append(solverConfiguration).toString();
+    }
+
+    /**
+     * Adds the patterns of the most similar cached order book to a pool.
+     * @param pool the pool to add the patterns to
+     * @param configuration the configuration of the run
+     * @param uniqueLengthList the list of unique coil lengths
+     */
+    private void addSimilarPatterns(PatternPool pool, String configuration, ArrayList<Integer> uniqueLengthList) {
+        if (resultCache == null) {
+            return;
+        }
+        for (ArrayList<Integer> pattern : resultCache.similarPatterns(sourceReader.getUniqueCoilLengthsAndAmounts(),
+                sourceReader.getSetupSpecs(), configuration, uniqueLengthList)) {
+            pool.add(pattern, waste(pattern, uniqueLengthList));
+        }
+    }
+
+    /**
+     * Stores the result of a run in the result cache. Only plans that can be cut are stored. Runs without
+     * a seed are stored too, under "seed=null": their plan is one outcome of a random search, and handing it
+     * back is what makes solving the same order book again instant.
+     * @param configuration the configuration of the run
+     * @param uniqueLengthList the list of unique coil lengths
+     * @param result the result of the run, may be null
+     */
+    private void storeResult(String configuration, ArrayList<Integer> uniqueLengthList, Result result) {
+        if (resultCache != null && result != null && isIntegral(result)) {
+            resultCache.put(sourceReader.getUniqueCoilLengthsAndAmounts(), sourceReader.getSetupSpecs(),
+                    configuration, uniqueLengthList, result);
+        }
+    }
+
+    /**
+     * Tells whether every pattern of a result is cut a whole number of times.
+     * @param result the result to check
+     * @return true if the result is a plan that can be cut
+     */
+    private static boolean isIntegral(Result result) {
+        for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+            if (Math.abs(pattern.getKey() - Math.rint(pattern.getKey())) > 1e-6) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the waste of a pattern.
+     * @param pattern the pattern, as counts over the unique length order
+     * @param uniqueLengthList the list of unique coil lengths
+     * @return the unused length of the coil
+     */
+    private int waste(ArrayList<Integer> pattern, ArrayList<Integer> uniqueLengthList) {
+        int currentLength = 0;
+        for (int j = 0; j < pattern.size(); j++) {
+            currentLength += pattern.get(j) * uniqueLengthList.get(j);
+        }
+        return maxLength - currentLength;
+    }
+
+    /**
+     * Generates patterns in rounds until the iterations are spent or the rounds reach a plateau.
+     * After each round the pool is pruned to count the new non-dominated patterns, and the linear
+     * relaxation over it is solved to measure how much the round improved the bound.
+     * @param iterations the maximum number of patterns to generate
+     * @param seeds known good patterns handed to the generator
+     * @param pool the pool the patterns are added to
+     * @param shardSeeds the source of the seeds of the shards
+     * @return the pool of distinct patterns
+     */
+    private PatternPool generateAdaptively(int iterations, List<ArrayList<Integer>> seeds, PatternPool pool,
+                                           SplittableRandom shardSeeds) {
+        HashMap<Integer, Integer> demandMap = sourceReader.getUniqueCoilLengthsAndAmounts();
+        ArrayList<Integer> uniqueLengthList = new ArrayList<>(demandMap.keySet());
+        ArrayList<Integer> uniqueCoilList = new ArrayList<>(demandMap.values());
+
+        int roundSize = Math.max(1, (iterations + GENERATION_BATCHES - 1) / GENERATION_BATCHES);
+        int generated = 0;
+        int staleRounds = 0;
+        int nonDominated = pool.pruneDominated(uniqueLengthList, maxLength, maxKnives).size();
+        double bound = Double.POSITIVE_INFINITY;
+
+        while (generated < iterations && staleRounds < plateauRounds) {
+            int count = Math.min(roundSize, iterations - generated);
+            ArrayList<Pair<ArrayList<Integer>, Integer>> round = generatePatterns(count, 1, seeds, shardSeeds);
+            if (round.isEmpty()) {
+                break;
+            }
+            generated += count;
+            deduplicate(pool, round);
+
+            PatternPool pruned = pool.pruneDominated(uniqueLengthList, maxLength, maxKnives);
+            int newPatterns = pruned.size() - nonDominated;
+            nonDominated = pruned.size();
+
+            // An uncovered width leaves the bound infinite, and any round that covers it is an improvement
+            double roundBound = Double.POSITIVE_INFINITY;
+            if (pruned.uncoveredWidths(uniqueLengthList.size()).isEmpty()) {
+                ProblemModel model = ProblemModel.of(pruned.getObjectiveCoefficients(), pruned.getPatterns(), uniqueLengthList, uniqueCoilList);
+                roundBound = relaxationSolver.solve(model, null).getResultWaste();
+            }
+            double improvement = Double.isInfinite(bound)
+                    ? (Double.isInfinite(roundBound) ? 0 : 1)
+                    : (bound - roundBound) / Math.max(1, Math.abs(bound));
+            bound = Math.min(bound, roundBound);
+
+            boolean stale = (double) newPatterns / count < minNewPatternRate && improvement < minBoundImprovement;
+            staleRounds = stale ? staleRounds + 1 : 0;
+        }
+
+        // The skipped rounds count as done
+        addProgress(iterations - generated);
+        return pool;
+    }
+
+    /**
+     * Builds the pattern pool with column generation and solves the optimization problem over it.
+     * @param maxColumns the maximum number of priced columns
+     * @return the Result object containing the solution, with the linear relaxation bound attached when proven
+     */
+    private Result runColumnGeneration(int maxColumns) {
+        ColumnGeneration columnGenerator = new ColumnGeneration(sourceReader);
+        columnGenerator.run(maxColumns, () -> addProgress(1));
+
+        PatternPool pool = new PatternPool();
+        double[] objectiveCoefficients = columnGenerator.getObjectiveCoefficients();
+        for (int i = 0; i < objectiveCoefficients.length; i++) {
+            pool.add(columnGenerator.getPatterns().get(i), objectiveCoefficients[i]);
+        }
+
+        if (dominancePruning) {
+            ArrayList<Integer> uniqueLengthList = new ArrayList<>(sourceReader.getUniqueCoilLengthsAndAmounts().keySet());
+            pool = pool.pruneDominated(uniqueLengthList, maxLength, maxKnives);
+        }
+
+        Result result = solvePatterns(pool);
+        if (result != null && columnGenerator.isConverged()) {
+            result.setLowerBound(columnGenerator.getLowerBound());
+        }
+        return result;
+    }
+
+    /**
+     * Solves the optimization problem over a pattern pool using each solver in the ISolvers array.
+     * @param pool the pool of distinct patterns, already pruned if pruning is enabled
+     * @return the Result object containing the solution to the optimization problem
+     */
+    private Result solvePatterns(PatternPool pool) {
+        // Retrieve the unique coil lengths and amounts from the source reader
+        HashMap<Integer, Integer> demandMap = sourceReader.getUniqueCoilLengthsAndAmounts();
+        ArrayList<Integer> uniqueLengthList = new ArrayList<>(demandMap.keySet());
+        ArrayList<Integer> uniqueCoilList = new ArrayList<>(demandMap.values());
+
+        // The sparse model of the pool is built once and shared by the solvers
+        return solveModel(ProblemModel.of(pool.getObjectiveCoefficients(), pool.getPatterns(), uniqueLengthList, uniqueCoilList));
+    }
+
+    /**
+     * Solves a model using each solver in the ISolvers array, each one starting from the result of the previous.
+     * @param model the sparse model of the problem
+     * @return the Result object containing the solution to the optimization problem
+     */
+    private Result solveModel(ProblemModel model) {
+        Result result = null;
+        for (ISolver ISolver : ISolvers) {
+            if (result != null) {
+                result = solveFromResult(ISolver, result, model.getLengthList(), model.getCoilList());
+            } else {
+                result = ISolver.solve(model, null);
+            }
+            addProgress(1);
         }
+        return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package inteli.cc6.Algorithms.PatternGenerators.Generators;
+
+import inteli.cc6.Algorithms.PatternGenerators.IPatternGenerator;
+import org.apache.commons.math3.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class runs several pattern generators as islands of an island model.
+ * The islands run concurrently on their own threads for a number of epochs;
+ * between epochs the elite patterns of every island migrate to the others as
+ * seeds, and the output of all islands is merged into one pool.
+ * <p>
+ * The migrants of the last epoch are kept for the next call made with the same
+ * Random, so the batches of a run keep migrating from one call to the next.
+ * Calls with different Randoms, such as the shards of a run, evolve apart and
+ * do not depend on which of them finishes first. The island threads are shared
+ * by every call and stopped by close.
+ */
+public class EnsembleIPatternGenerator implements IPatternGenerator, AutoCloseable {
+    /**
+     * The generators running as islands.
+     */
+    private final List<IPatternGenerator> islands;
+
+    private int epochs = 4;
+    private int migrants = 10;
+
+    // the island threads, created on the first call
+    private ExecutorService executor = null;
+
+    // Random of a run -> the migrants each island receives on its next call
+    private final WeakHashMap<Random, ArrayList<List<ArrayList<Integer>>>> pendingMigrants = new WeakHashMap<>();
+
+    /**
+     * Creates a new EnsembleIPatternGenerator object.
+     *
+     * @param islands The generators to run as islands.
+     */
+    public EnsembleIPatternGenerator(IPatternGenerator... islands) {
+        if (islands.length == 0) {
+            throw new IllegalArgumentException("The ensemble needs at least one generator");
+        }
+        this.islands = Arrays.asList(islands);
+    }
+
+    /**
+     * Sets the number of epochs, that is, the number of migrations plus one.
+     *
+     * @param epochs The number of epochs.
+     */
+    public void setEpochs(int epochs) {
+        this.epochs = Math.max(1, epochs);
+    }
+
+    /**
+     * Sets how many elite patterns each island sends to the others after an epoch.
+     *
+     * @param migrants The number of migrating patterns per island.
+     */
+    public void setMigrants(int migrants) {
+        this.migrants = Math.max(0, migrants);
+    }
+
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random) {
+        return generatePatterns(count, random, Collections.emptyList());
+    }
+
+    /**
+     * Runs every island for the configured number of epochs and merges their output.
+     *
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator of the current run.
+     * @param seeds  Patterns given to every island in the first epoch.
+     * @return The best distinct patterns of all islands, sorted by increasing waste.
+     */
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random,
+                                                                         List<ArrayList<Integer>> seeds) {
+        int epochCount = Math.min(epochs, Math.max(1, count));
+        int islandCount = islands.size();
+
+        // pattern -> waste, merged over every island and epoch
+        LinkedHashMap<ArrayList<Integer>, Integer> merged = new LinkedHashMap<>();
+
+        // The first epoch starts from the given seeds and the migrants left by the previous call
+        ArrayList<List<ArrayList<Integer>>> pending;
+        synchronized (pendingMigrants) {
+            pending = pendingMigrants.get(random);
+        }
+        ArrayList<List<ArrayList<Integer>>> islandSeeds = new ArrayList<>();
+        for (int island = 0; island < islandCount; island++) {
+            ArrayList<ArrayList<Integer>> initial = new ArrayList<>(seeds);
+            if (pending != null) {
+                initial.addAll(pending.get(island));
+            }
+            islandSeeds.add(initial);
+        }
+
+        ExecutorService executor = executor();
+        try {
+            for (int epoch = 0; epoch < epochCount; epoch++) {
+                ArrayList<Callable<ArrayList<Pair<ArrayList<Integer>, Integer>>>> tasks = new ArrayList<>();
+                for (int island = 0; island < islandCount; island++) {
+                    // Split the requested patterns over the islands and epochs
+                    int slot = epoch * islandCount + island;
+                    int slots = epochCount * islandCount;
+                    int islandPatterns = count / slots + (slot < count % slots ? 1 : 0);
+
+                    IPatternGenerator generator = islands.get(island);
+                    Random islandRandom = new Random(random.nextLong());
+                    List<ArrayList<Integer>> migrantSeeds = islandSeeds.get(island);
+                    tasks.add(() -> generator.generatePatterns(Math.max(1, islandPatterns), islandRandom,
+                            migrantSeeds));
+                }
+
+                ArrayList<ArrayList<Pair<ArrayList<Integer>, Integer>>> results = new ArrayList<>();
+                for (Future<ArrayList<Pair<ArrayList<Integer>, Integer>>> future : executor.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+
+                // Merge in island order, so the pool does not depend on which island finished first
+                for (ArrayList<Pair<ArrayList<Integer>, Integer>> result : results) {
+                    for (Pair<ArrayList<Integer>, Integer> pattern : result) {
+                        merged.putIfAbsent(pattern.getKey(), pattern.getValue());
+                    }
+                }
+
+                // Each island receives the elite of all the other islands
+                for (int island = 0; island < islandCount; island++) {
+                    ArrayList<ArrayList<Integer>> incoming = new ArrayList<>();
+                    for (int other = 0; other < islandCount; other++) {
+                        if (other != island) {
+                            incoming.addAll(elite(results.get(other)));
+                        }
+                    }
+                    islandSeeds.set(island, incoming);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Pattern generation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        synchronized (pendingMigrants) {
+            pendingMigrants.put(random, islandSeeds);
+        }
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = new ArrayList<>();
+        for (Map.Entry<ArrayList<Integer>, Integer> entry : merged.entrySet()) {
+            patterns.add(new Pair<>(entry.getKey(), entry.getValue()));
+        }
+        patterns.sort(Comparator.comparing(Pair::getValue));
+        return new ArrayList<>(patterns.subList(0, Math.min(count, patterns.size())));
+    }
+
+    /**
+     * Returns the executor running the islands, creating it on the first call. Its
+     * threads are daemons, so a generator that is never closed does not keep the
+     * application alive.
+     */
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "ensemble-island");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the island threads and forgets the pending migrants. A later call
+     * starts new threads.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        synchronized (pendingMigrants) {
+            pendingMigrants.clear();
+        }
+    }
+
+    /**
+     * Picks the patterns with the least waste of an island's output.
+     *
+     * @param result The patterns generated by the island.
+     * @return The elite patterns.
+     */
+    private ArrayList<ArrayList<Integer>> elite(ArrayList<Pair<ArrayList<Integer>, Integer>> result) {
+        ArrayList<Pair<ArrayList<Integer>, Integer>> sorted = new ArrayList<>(result);
+        sorted.sort(Comparator.comparing(Pair::getValue));
+        ArrayList<ArrayList<Integer>> elite = new ArrayList<>();
+        for (int i = 0; i < Math.min(migrants, sorted.size()); i++) {
+            elite.add(sorted.get(i).getKey());
+        }
+        return elite;
+    }
+}
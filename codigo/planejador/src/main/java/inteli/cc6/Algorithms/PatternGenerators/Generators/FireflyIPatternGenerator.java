@@ -5,180 +5,334 @@ import inteli.cc6.InputReader.InputReader;
 import org.apache.commons.math3.util.Pair;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 
 /**
  * This class implements a firefly algorithm to find the optimal pattern for a
  * coil.
+ * <p>
+ * Positions are count vectors over the unique coil lengths stored in primitive
+ * arrays. Each generation the swarm is sorted by light intensity and every
+ * firefly only moves toward the few fireflies ranked right above it, so a
+ * generation costs time linear in the population size. Moves and light
+ * intensities are computed in parallel, each firefly drawing from its own random
+ * number generator so the result does not depend on thread scheduling.
  */
+public class FireflyIPatternGenerator implements IPatternGenerator {
+    /**
+     * The input reader used to read the coil specifications.
+     */
+    private InputReader sourceReader;
+    final int populationSize;
+    final int maxGen;
 
-class Firefly implements Comparable<Firefly> {
-    ArrayList<Integer> elements;
-    Double lightIntensity;
-
-    int patternLength = 0;
+    /**
+     * The number of brighter fireflies each firefly moves toward.
+     */
+    private int neighborhood = 5;
 
-    public Firefly(ArrayList<Integer> elements) {
-        this.elements = elements;
-        this.lightIntensity = 0.0;
+    /**
+     * Creates a new FireflyIPatternGenerator object.
+     *
+     * @param sourceReader   The input reader used to read the coil specifications.
+     * @param maxGen         The number of generations.
+     * @param populationSize The number of fireflies.
+     */
+    public FireflyIPatternGenerator(InputReader sourceReader, int maxGen, int populationSize) {
+        this.sourceReader = sourceReader;
+        this.populationSize = populationSize;
+        this.maxGen = maxGen;
     }
 
-    public double updateLightIntensity(ArrayList<Integer> lengths, int maxCoilLength, int maxCoilCount) {
-        this.lightIntensity = this._evaluate(lengths, maxCoilLength, maxCoilCount);
-        return this.lightIntensity;
+    /**
+     * Sets the number of brighter fireflies each firefly moves toward in a generation.
+     *
+     * @param neighborhood The neighborhood size.
+     */
+    public void setNeighborhood(int neighborhood) {
+        this.neighborhood = Math.max(1, neighborhood);
     }
 
-    private double _evaluate(ArrayList<Integer> lengths, int maxCoilLength, int maxCoilCount) {
+    /**
+     * Evaluates the light intensity of a firefly. Feasible patterns shine with the
+     * length they use; infeasible ones are penalized by how much they overflow.
+     *
+     * @param position      The position of the firefly.
+     * @param lengths       The unique coil lengths.
+     * @param maxCoilLength The maximum length of a coil.
+     * @param maxCoilCount  The maximum number of coils in a pattern.
+     * @return The light intensity.
+     */
+    private static double lightIntensity(int[] position, int[] lengths, int maxCoilLength, int maxCoilCount) {
         int sumItems = 0;
-        int diverstiy = 0;
+        int diversity = 0;
         int coilCount = 0;
 
-        for (int i = 0; i < elements.size(); i++) {
-            int element = elements.get(i);
-            sumItems += element * lengths.get(i);
-            if (elements.get(i) > 0) {
-                diverstiy++;
+        for (int i = 0; i < position.length; i++) {
+            sumItems += position[i] * lengths[i];
+            if (position[i] > 0) {
+                diversity++;
             }
-            coilCount += element;
+            coilCount += position[i];
         }
 
-        this.patternLength = sumItems;
-
         if (sumItems > maxCoilLength || coilCount > maxCoilCount) {
             if (coilCount > maxCoilCount) {
                 return 0;
             }
-            return ((double) sumItems / Math.abs(maxCoilLength - sumItems)) * ((double) diverstiy / maxCoilCount);
+            return ((double) sumItems / Math.abs(maxCoilLength - sumItems)) * ((double) diversity / maxCoilCount);
         }
-        return (double) sumItems;
+        return sumItems;
     }
 
-    int hammingDistance(Firefly other) {
+    private static int hammingDistance(int[] a, int[] b) {
         int distance = 0;
-        for (int i = 0; i < elements.size(); i++) {
-            if (!elements.get(i).equals(other.elements.get(i))) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
                 distance++;
             }
         }
         return distance;
     }
 
-    @Override
-    public int compareTo(Firefly o) {
-        return this.lightIntensity.compareTo(o.lightIntensity);
+    private static double beta(int[] I, int[] J, double beta0, double gamma) {
+        int distance = hammingDistance(I, J);
+        return beta0 * Math.exp(-gamma * Math.exp(-gamma * Math.pow(distance, 2)));
     }
-}
 
-public class FireflyIPatternGenerator implements IPatternGenerator {
     /**
-     * The input reader used to read the coil specifications.
+     * Places a firefly at a random position that fits the coil.
      */
-    private InputReader sourceReader;
-    final int populationSize;
-    final int maxGen;
-
-    /**
-     * Creates a new GAIPatternGenerator object.
-     *
-     * @param sourceReader The input reader used to read the coil specifications.
-     */
-    public FireflyIPatternGenerator(InputReader sourceReader, int maxGen, int populationSize) {
-        this.sourceReader = sourceReader;
-        this.populationSize = populationSize;
-        this.maxGen = maxGen;
-    }
-
-    private Firefly generateRandomFirefly(ArrayList<Integer> lengthList, int maxCoilLength, int maxCoilCount) {
-        ArrayList<Integer> elements = new ArrayList<>(lengthList.size());
-        for (int i = 0; i < lengthList.size(); i++) {
-            elements.add(0);
-        }
-        ArrayList<Integer> lengthListCopy = new ArrayList<>(lengthList);
+    private static void randomPosition(int[] position, int[] lengths, int maxCoilLength, int maxCoilCount,
+                                       SplittableRandom random) {
+        Arrays.fill(position, 0);
+        boolean[] used = new boolean[lengths.length];
         int sumItems = 0;
         int coilCount = 0;
-        int allowedMaxCoils = maxCoilCount;
-        for (int i = 0; i < maxCoilCount; i++) {
-            int randomIndex = (int) (Math.random() * lengthListCopy.size());
-            int randomAmount = (int) (Math.random() * (allowedMaxCoils + 1));
-            int randomLength = lengthListCopy.get(randomIndex);
-            if (randomAmount * randomLength + sumItems > maxCoilLength || coilCount + randomAmount > maxCoilCount) {
+        for (int i = 0; i < Math.min(maxCoilCount, lengths.length); i++) {
+            int randomIndex = random.nextInt(lengths.length);
+            int randomAmount = random.nextInt(maxCoilCount - coilCount + 1);
+            if (used[randomIndex]) {
+                continue;
+            }
+            if (randomAmount * lengths[randomIndex] + sumItems > maxCoilLength) {
                 break;
             }
-            elements.set(randomIndex, randomAmount);
-            sumItems += randomAmount * randomLength;
+            position[randomIndex] = randomAmount;
+            sumItems += randomAmount * lengths[randomIndex];
             coilCount += randomAmount;
-            allowedMaxCoils -= randomAmount;
-            lengthListCopy.remove(randomIndex);
-        }
-        Firefly newFirefly = new Firefly(elements);
-        newFirefly.updateLightIntensity(lengthList, maxCoilLength, maxCoilCount);
-        return newFirefly;
-    }
-
-    private ArrayList<Firefly> generateRandomPopulation(int populationSize, ArrayList<Integer> lengthList,
-                                                        int maxCoilLength, int maxCoilCount) {
-        ArrayList<Firefly> population = new ArrayList<>(populationSize);
-        for (int i = 0; i < populationSize; i++) {
-            population.add(generateRandomFirefly(lengthList, maxCoilLength, maxCoilCount));
+            used[randomIndex] = true;
         }
-        return population;
     }
 
-    private double beta(Firefly I, Firefly J, double beta0, double gamma) {
-        int distance = I.hammingDistance(J);
-        return beta0 * Math.exp(-gamma * Math.exp(-gamma * Math.pow(distance, 2)));
+    /**
+     * Gets the best distinct feasible patterns visited by the swarm. The positions of
+     * every generation are harvested, so one run of the swarm yields many patterns.
+     *
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator of the current run.
+     * @return The best patterns, sorted by increasing waste.
+     */
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random) {
+        return generatePatterns(count, random, Collections.emptyList());
     }
 
-    public Pair<ArrayList<Integer>, Integer> generatePattern() {
+    /**
+     * Gets the best distinct feasible patterns visited by a swarm whose first
+     * fireflies start at the given seeds.
+     *
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator of the current run.
+     * @param seeds  Starting positions for the first fireflies.
+     * @return The best patterns, sorted by increasing waste.
+     */
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random,
+                                                                         List<ArrayList<Integer>> seeds) {
         HashMap<String, Integer> specs = sourceReader.getSetupSpecs();
         int maxCoilLength = specs.get("Larg Max");
         int maxCoilNumber = specs.get("Máx. bob/tirada");
 
         Set<Integer> uniqueLengths = this.sourceReader.getUniqueCoilLengthsAndAmounts().keySet();
-        ArrayList<Integer> uniqueList = new ArrayList<>(uniqueLengths);
-
-        ArrayList<Firefly> fireflyPopulation = generateRandomPopulation(populationSize, uniqueList, maxCoilLength,
-                maxCoilNumber);
-        Firefly bestFirefly = new Firefly(new ArrayList<>());
-
-        int currentGen = 0;
-
-        while (currentGen < maxGen) {
-            for (int i = 0; i < fireflyPopulation.size(); i++) {
-                Firefly currentFirefly = fireflyPopulation.get(i);
-                for (int j = 0; j < fireflyPopulation.size(); j++) {
-                    Firefly otherFirefly = fireflyPopulation.get(j);
-                    if (otherFirefly.lightIntensity > currentFirefly.lightIntensity) {
-                        double attractiveness = beta(currentFirefly, otherFirefly, 1, 0.2);
-                        for (int k = 0; k < currentFirefly.elements.size(); k++) {
-                            int currentElement = currentFirefly.elements.get(k);
-                            int otherElement = otherFirefly.elements.get(k);
-                            if (currentElement == otherElement) {
-                                currentFirefly.elements.set(k, otherElement);
-                            } else {
-                                // random number between 0 and 1
-                                double random = Math.random();
-                                if (random + 0.5 < attractiveness) {
-                                    currentFirefly.elements.set(k, otherElement);
-                                } else {
-                                    currentFirefly.elements.set(k, currentElement);
-                                }
-                            }
+        int[] lengths = uniqueLengths.stream().mapToInt(Integer::intValue).toArray();
+
+        int[][] positions = new int[populationSize][lengths.length];
+        int[][] nextPositions = new int[populationSize][lengths.length];
+        double[] intensity = new double[populationSize];
+
+        long populationSeed = random.nextLong();
+        IntStream.range(0, populationSize).parallel().forEach(i -> {
+            if (i < seeds.size() && seeds.get(i).size() == lengths.length) {
+                for (int k = 0; k < lengths.length; k++) {
+                    positions[i][k] = seeds.get(i).get(k);
+                }
+            } else {
+                randomPosition(positions[i], lengths, maxCoilLength, maxCoilNumber, fireflyRandom(populationSeed, i));
+            }
+            intensity[i] = lightIntensity(positions[i], lengths, maxCoilLength, maxCoilNumber);
+        });
+
+        // the count least wasteful distinct feasible fireflies seen so far
+        Harvest harvested = new Harvest(count);
+        harvest(positions, lengths, maxCoilLength, maxCoilNumber, harvested);
+
+        Integer[] ranking = new Integer[populationSize];
+        for (int currentGen = 0; currentGen < maxGen; currentGen++) {
+            // Rank the swarm from the brightest to the dimmest firefly
+            for (int i = 0; i < populationSize; i++) {
+                ranking[i] = i;
+            }
+            Arrays.sort(ranking, (a, b) -> Double.compare(intensity[b], intensity[a]));
+
+            long generationSeed = random.nextLong();
+            IntStream.range(0, populationSize).parallel().forEach(rank -> {
+                int current = ranking[rank];
+                int[] next = nextPositions[current];
+                System.arraycopy(positions[current], 0, next, 0, next.length);
+                SplittableRandom fireflyRandom = fireflyRandom(generationSeed, current);
+
+                if (rank == 0) {
+                    // The brightest firefly walks randomly
+                    int k = fireflyRandom.nextInt(next.length);
+                    next[k] = Math.max(0, next[k] + (fireflyRandom.nextBoolean() ? 1 : -1));
+                }
+
+                // Move toward the brighter fireflies ranked right above this one
+                for (int other = Math.max(0, rank - neighborhood); other < rank; other++) {
+                    int[] otherPosition = positions[ranking[other]];
+                    if (intensity[ranking[other]] <= intensity[current]) {
+                        continue;
+                    }
+                    double attractiveness = beta(next, otherPosition, 1, 0.2);
+                    for (int k = 0; k < next.length; k++) {
+                        if (next[k] != otherPosition[k] && fireflyRandom.nextDouble() + 0.5 < attractiveness) {
+                            next[k] = otherPosition[k];
                         }
-                        currentFirefly.updateLightIntensity(uniqueList, maxCoilLength, maxCoilNumber);
                     }
                 }
+            });
+
+            IntStream.range(0, populationSize).parallel().forEach(i -> {
+                System.arraycopy(nextPositions[i], 0, positions[i], 0, lengths.length);
+                intensity[i] = lightIntensity(positions[i], lengths, maxCoilLength, maxCoilNumber);
+            });
+            harvest(positions, lengths, maxCoilLength, maxCoilNumber, harvested);
+        }
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = new ArrayList<>();
+        for (Harvested entry : harvested.sorted()) {
+            ArrayList<Integer> pattern = new ArrayList<>(entry.position.length);
+            for (int element : entry.position) {
+                pattern.add(element);
             }
-            Firefly best = Collections.max(fireflyPopulation);
-            if (currentGen == 0 || best.lightIntensity > bestFirefly.lightIntensity) {
-                bestFirefly = best;
+            patterns.add(new Pair<>(pattern, entry.waste));
+        }
+        return patterns;
+    }
+
+    /**
+     * Derives the random number generator of one firefly in one generation.
+     */
+    private static SplittableRandom fireflyRandom(long seed, int firefly) {
+        return new SplittableRandom(seed + firefly * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Offers the position of every feasible firefly to the harvested patterns.
+     */
+    private void harvest(int[][] positions, int[] lengths, int maxCoilLength, int maxCoilNumber,
+                         Harvest harvested) {
+        for (int[] position : positions) {
+            int coilCount = 0;
+            int patternLength = 0;
+            for (int i = 0; i < position.length; i++) {
+                coilCount += position[i];
+                patternLength += position[i] * lengths[i];
             }
-            currentGen++;
+            if (coilCount > 0 && coilCount <= maxCoilNumber && patternLength <= maxCoilLength) {
+                harvested.offer(position, maxCoilLength - patternLength);
+            }
+        }
+    }
+
+    /**
+     * A harvested position with its waste. Equality and hashing follow the counts of
+     * the position, and the order in which it was first seen breaks ties on waste.
+     */
+    private static final class Harvested {
+        final int[] position;
+        final int waste;
+        final long order;
+
+        Harvested(int[] position, int waste, long order) {
+            this.position = position;
+            this.waste = waste;
+            this.order = order;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Harvested && Arrays.equals(position, ((Harvested) other).position);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(position);
+        }
+    }
+
+    /**
+     * Keeps the least wasteful distinct positions offered, up to a fixed count. Among
+     * positions with the same waste the first seen is kept, and a position is only
+     * copied when it enters the harvest.
+     */
+    private static class Harvest {
+        private static final Comparator<Harvested> BEST_FIRST =
+                Comparator.comparingInt((Harvested entry) -> entry.waste).thenComparingLong(entry -> entry.order);
+
+        private final int capacity;
+        private final HashSet<Harvested> harvested = new HashSet<>();
+
+        // The worst harvested position is on top, so it can be replaced
+        private final PriorityQueue<Harvested> worstFirst = new PriorityQueue<>(BEST_FIRST.reversed());
+        private long offered = 0;
+
+        Harvest(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void offer(int[] position, int waste) {
+            long order = offered++;
+            if (capacity <= 0 || (worstFirst.size() >= capacity && waste >= worstFirst.peek().waste)) {
+                return;
+            }
+            if (harvested.contains(new Harvested(position, waste, order))) {
+                return;
+            }
+            Harvested entry = new Harvested(position.clone(), waste, order);
+            harvested.add(entry);
+            worstFirst.add(entry);
+            if (worstFirst.size() > capacity) {
+                harvested.remove(worstFirst.poll());
+            }
+        }
+
+        ArrayList<Harvested> sorted() {
+            ArrayList<Harvested> sorted = new ArrayList<>(worstFirst);
+            sorted.sort(BEST_FIRST);
+            return sorted;
         }
-        System.out.println(uniqueList);
-        return new Pair<>(bestFirefly.elements, maxCoilLength - bestFirefly.patternLength);
     }
 
 }
@@ -0,0 +1,230 @@
+/**
+ * The FirstFitDecreasingIPatternGenerator class implements the greedy first-fit
+ * decreasing and best-fit decreasing heuristics to cut the whole demand from
+ * jumbo rolls.
+ */
+package inteli.cc6.Algorithms.PatternGenerators.Generators;
+
+import inteli.cc6.Algorithms.PatternGenerators.IPatternGenerator;
+import inteli.cc6.InputReader.InputReader;
+import inteli.cc6.Models.Result;
+
+import org.apache.commons.math3.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+public class FirstFitDecreasingIPatternGenerator implements IPatternGenerator {
+
+    private final InputReader sourceReader;
+
+    /**
+     * Constructs a FirstFitDecreasingIPatternGenerator object with the given source reader.
+     *
+     * @param sourceReader the input reader used to retrieve the demand and setup specifications
+     */
+    public FirstFitDecreasingIPatternGenerator(InputReader sourceReader) {
+        this.sourceReader = sourceReader;
+    }
+
+    /**
+     * Returns the distinct patterns of the first-fit and best-fit decreasing plans.
+     * Together they cover the whole demand, which makes them a good seed pool. The
+     * heuristics are deterministic, so the random number generator is not used.
+     *
+     * @param count  the maximum number of patterns to return
+     * @param random the random number generator of the current run
+     * @return the patterns and their waste, sorted by increasing waste
+     */
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random) {
+        int maxLength = sourceReader.getSetupSpecs().get("Larg Max");
+        ArrayList<Integer> uniqueList = new ArrayList<>(sourceReader.getUniqueCoilLengthsAndAmounts().keySet());
+
+        LinkedHashMap<ArrayList<Integer>, Integer> distinct = new LinkedHashMap<>();
+        for (boolean bestFit : new boolean[]{false, true}) {
+            for (Pair<Double, ArrayList<Integer>> pattern : buildPlan(bestFit)) {
+                distinct.putIfAbsent(pattern.getValue(), maxLength - usedLength(pattern.getValue(), uniqueList));
+            }
+        }
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = new ArrayList<>();
+        for (Map.Entry<ArrayList<Integer>, Integer> entry : distinct.entrySet()) {
+            patterns.add(new Pair<>(entry.getKey(), entry.getValue()));
+        }
+        patterns.sort(Comparator.comparing(Pair::getValue));
+        return new ArrayList<>(patterns.subList(0, Math.min(count, patterns.size())));
+    }
+
+    /**
+     * Builds a complete cutting plan with the better of the first-fit and best-fit
+     * decreasing heuristics. It runs in a fraction of a second and can be used as a
+     * fallback answer when no solver result is available.
+     *
+     * @return the plan, with how many times each pattern is cut and the total waste
+     */
+    public Result solve() {
+        int maxLength = sourceReader.getSetupSpecs().get("Larg Max");
+        ArrayList<Integer> uniqueList = new ArrayList<>(sourceReader.getUniqueCoilLengthsAndAmounts().keySet());
+
+        Result best = null;
+        for (boolean bestFit : new boolean[]{false, true}) {
+            ArrayList<Pair<Double, ArrayList<Integer>>> plan = buildPlan(bestFit);
+            double waste = 0;
+            for (Pair<Double, ArrayList<Integer>> pattern : plan) {
+                waste += pattern.getKey() * (maxLength - usedLength(pattern.getValue(), uniqueList));
+            }
+            if (best == null || waste < best.getResultWaste()) {
+                best = new Result(UUID.randomUUID().toString(), plan, waste);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Packs the whole demand into jumbo rolls, visiting the unique widths from the
+     * largest to the smallest. Rolls with the same contents are kept as a single
+     * group with a multiplicity, so the cost depends on the number of distinct
+     * widths and not on the demanded quantities.
+     *
+     * @param bestFit true to fill the fullest rolls first, false to fill them in opening order
+     * @return the patterns of the plan and how many rolls use each of them
+     */
+    private ArrayList<Pair<Double, ArrayList<Integer>>> buildPlan(boolean bestFit) {
+        HashMap<String, Integer> specs = sourceReader.getSetupSpecs();
+        int maxLength = specs.get("Larg Max");
+        int maxKnives = specs.get("Máx. bob/tirada");
+
+        HashMap<Integer, Integer> demandMap = sourceReader.getUniqueCoilLengthsAndAmounts();
+        ArrayList<Integer> uniqueList = new ArrayList<>(demandMap.keySet());
+
+        Integer[] order = new Integer[uniqueList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> uniqueList.get(i)).reversed());
+
+        ArrayList<RollGroup> groups = new ArrayList<>();
+        for (int i : order) {
+            int length = uniqueList.get(i);
+            long demand = demandMap.get(length);
+            if (length > maxLength || maxKnives < 1) {
+                throw new IllegalArgumentException("Width " + length + " does not fit the jumbo roll");
+            }
+
+            if (bestFit) {
+                groups.sort(Comparator.comparingInt(group -> group.remaining));
+            }
+
+            // Fill the open rolls first; split rolls keep the position of their group
+            ArrayList<RollGroup> updated = new ArrayList<>();
+            for (RollGroup group : groups) {
+                int fits = Math.min(group.remaining / length, maxKnives - group.knives);
+                if (demand == 0 || fits == 0) {
+                    updated.add(group);
+                    continue;
+                }
+                ArrayList<RollGroup> split = new ArrayList<>();
+                long fullRolls = Math.min(group.rolls, demand / fits);
+                long partial = demand - fullRolls * fits;
+                if (fullRolls < group.rolls && partial > 0) {
+                    // The last roll only takes what is left of the demand
+                    split.add(group.split(1, i, (int) partial, length));
+                    demand -= partial;
+                }
+                if (fullRolls > 0) {
+                    if (fullRolls < group.rolls) {
+                        split.add(group.split(fullRolls, i, fits, length));
+                    } else {
+                        group.add(i, fits, length);
+                    }
+                    demand -= fullRolls * fits;
+                }
+                updated.addAll(split);
+                if (group.rolls > 0) {
+                    updated.add(group);
+                }
+            }
+            groups = updated;
+
+            // Open new rolls for the rest of the demand
+            int perRoll = Math.min(maxLength / length, maxKnives);
+            if (demand / perRoll > 0) {
+                RollGroup group = new RollGroup(uniqueList.size(), maxLength, demand / perRoll);
+                group.add(i, perRoll, length);
+                groups.add(group);
+            }
+            if (demand % perRoll > 0) {
+                RollGroup group = new RollGroup(uniqueList.size(), maxLength, 1);
+                group.add(i, (int) (demand % perRoll), length);
+                groups.add(group);
+            }
+        }
+
+        ArrayList<Pair<Double, ArrayList<Integer>>> plan = new ArrayList<>();
+        for (RollGroup group : groups) {
+            ArrayList<Integer> pattern = new ArrayList<>(group.counts.length);
+            for (int count : group.counts) {
+                pattern.add(count);
+            }
+            plan.add(new Pair<>((double) group.rolls, pattern));
+        }
+        return plan;
+    }
+
+    /**
+     * Computes the length of the jumbo roll used by a pattern.
+     *
+     * @param pattern    the pattern, as counts over the unique length order
+     * @param uniqueList the unique coil lengths
+     * @return the used length
+     */
+    private static int usedLength(ArrayList<Integer> pattern, ArrayList<Integer> uniqueList) {
+        int sum = 0;
+        for (int i = 0; i < pattern.size(); i++) {
+            sum += pattern.get(i) * uniqueList.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * A group of identical jumbo rolls.
+     */
+    private static class RollGroup {
+        private final int[] counts;
+        private int remaining;
+        private int knives = 0;
+        private long rolls;
+
+        RollGroup(int size, int maxLength, long rolls) {
+            this.counts = new int[size];
+            this.remaining = maxLength;
+            this.rolls = rolls;
+        }
+
+        void add(int index, int amount, int length) {
+            counts[index] += amount;
+            remaining -= amount * length;
+            knives += amount;
+        }
+
+        /**
+         * Moves some rolls of this group into a new group and adds coils to them.
+         */
+        RollGroup split(long amountOfRolls, int index, int amount, int length) {
+            RollGroup group = new RollGroup(counts.length, 0, amountOfRolls);
+            System.arraycopy(counts, 0, group.counts, 0, counts.length);
+            group.remaining = remaining;
+            group.knives = knives;
+            group.add(index, amount, length);
+            rolls -= amountOfRolls;
+            return group;
+        }
+    }
+}
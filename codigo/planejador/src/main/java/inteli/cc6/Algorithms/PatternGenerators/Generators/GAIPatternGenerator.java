@@ -1,20 +1,86 @@
 package inteli.cc6.Algorithms.PatternGenerators.Generators;
 
 import inteli.cc6.Algorithms.PatternGenerators.IPatternGenerator;
-import inteli.cc6.Forms.Singleton;
 import inteli.cc6.InputReader.InputReader;
 import org.apache.commons.math3.util.Pair;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.Set;
 
 /**
  * This class implements a genetic algorithm to find the optimal pattern for a
  * coil.
- *
+ * <p>
+ * Chromosomes are count vectors over the unique coil lengths stored in primitive
+ * arrays. The population has a fixed size and evolves in steady state: each step
+ * picks two parents by tournament, builds one child with the crossover and
+ * mutation operators, repairs it into a feasible pattern and lets it replace the
+ * loser of a reverse tournament. Fitness is cached per individual, so a run costs
+ * time linear in generations times population size and no memory beyond the
+ * population and the harvested patterns.
  */
 public class GAIPatternGenerator implements IPatternGenerator {
+    /**
+     * Combines two parents into a child.
+     */
+    @FunctionalInterface
+    public interface CrossoverOperator {
+        void cross(int[] parent1, int[] parent2, int[] child, Random random);
+    }
+
+    /**
+     * Changes a chromosome in place. The child is repaired afterwards, so the
+     * operator does not need to keep it feasible.
+     */
+    @FunctionalInterface
+    public interface MutationOperator {
+        void mutate(int[] chromosome, int maxCount, Random random);
+    }
+
+    /**
+     * Takes every gene from either parent with the same probability.
+     */
+    public static final CrossoverOperator UNIFORM_CROSSOVER = (parent1, parent2, child, random) -> {
+        for (int i = 0; i < child.length; i++) {
+            child[i] = random.nextBoolean() ? parent1[i] : parent2[i];
+        }
+    };
+
+    /**
+     * Takes the genes before a random split point from the first parent and the rest from the second one.
+     */
+    public static final CrossoverOperator ONE_POINT_CROSSOVER = (parent1, parent2, child, random) -> {
+        int splitIndex = random.nextInt(child.length + 1);
+        System.arraycopy(parent1, 0, child, 0, splitIndex);
+        System.arraycopy(parent2, splitIndex, child, splitIndex, child.length - splitIndex);
+    };
+
+    /**
+     * Moves one coil from a random width to another random width.
+     */
+    public static final MutationOperator SWAP_MUTATION = (chromosome, maxCount, random) -> {
+        int from = random.nextInt(chromosome.length);
+        int to = random.nextInt(chromosome.length);
+        if (chromosome[from] > 0) {
+            chromosome[from]--;
+            chromosome[to]++;
+        }
+    };
+
+    /**
+     * Resets a random width to a random count.
+     */
+    public static final MutationOperator RESET_MUTATION = (chromosome, maxCount, random) ->
+            chromosome[random.nextInt(chromosome.length)] = random.nextInt(maxCount + 1);
+
     /**
      * The input reader used to read the coil specifications.
      */
@@ -23,239 +89,319 @@ public class GAIPatternGenerator implements IPatternGenerator {
     /**
      * The population size.
      */
-    Singleton singleton = Singleton.getInstance();
-    int population = singleton.getPopulationSize();
-    private int populationSize = population;
+    private int populationSize;
+
+    /**
+     * The number of generations, each one producing as many children as the population size.
+     */
+    private int generations = 50;
+
+    private int tournamentSize = 3;
+    private double mutationRate = 0.2;
+    private CrossoverOperator crossover = UNIFORM_CROSSOVER;
+    private MutationOperator mutation = SWAP_MUTATION;
 
     /**
      * Creates a new GAIPatternGenerator object.
      *
-     * @param sourceReader The input reader used to read the coil specifications.
+     * @param sourceReader   The input reader used to read the coil specifications.
+     * @param populationSize The population size.
      */
     public GAIPatternGenerator(InputReader sourceReader, int populationSize) {
+        if (populationSize < 2) {
+            throw new IllegalArgumentException("The population needs at least two individuals");
+        }
         this.sourceReader = sourceReader;
         this.populationSize = populationSize;
     }
 
     /**
+     * Sets the number of generations of each run.
      *
-     * Evaluates the fitness of a pattern.
-     * 
-     * @param pattern       The pattern to evaluate.
-     * @param maxCoilLength The maximum length of a coil.
-     * @return The fitness of the pattern.
+     * @param generations The number of generations.
      */
-    private int evaluatePattern(ArrayList<Integer> pattern, int maxCoilLength) {
-        // sums the length of all coils in the pattern
-        int sum = 0;
-        for (int i = 0; i < pattern.size(); i++) {
-            sum += pattern.get(i);
-        }
-        // if the sum is greater than the max length, the pattern is invalid
-        if (sum > maxCoilLength) {
-            return -1;
-        }
-
-        return sum;
-
+    public void setGenerations(int generations) {
+        this.generations = generations;
     }
 
     /**
-     * Crosses over two patterns to create two new patterns.
+     * Sets the number of individuals competing in each tournament.
      *
-     * @param parent1 The first parent pattern.
-     * @param parent2 The second parent pattern.
-     * @return The two new patterns.
+     * @param tournamentSize The tournament size.
      */
-    private ArrayList<ArrayList<Integer>> crossOver(ArrayList<Integer> parent1, ArrayList<Integer> parent2) {
-        ArrayList<ArrayList<Integer>> children = new ArrayList<>();
-
-        // get the size of the parents
-        int size = parent1.size();
-
-        // get a random index to split the parents
-        int splitIndex = (int) (Math.random() * size);
-
-        // create the children
-        ArrayList<Integer> child1 = new ArrayList<>();
-        ArrayList<Integer> child2 = new ArrayList<>();
-
-        // fill the children with the first part of the parents
-        for (int i = 0; i < splitIndex; i++) {
-            child1.add(parent1.get(i));
-            child2.add(parent2.get(i));
-        }
+    public void setTournamentSize(int tournamentSize) {
+        this.tournamentSize = Math.max(1, tournamentSize);
+    }
 
-        // fill the children with the second part of the parents
-        for (int i = splitIndex; i < size; i++) {
-            child1.add(parent2.get(i));
-            child2.add(parent1.get(i));
-        }
+    /**
+     * Sets the probability of mutating a child.
+     *
+     * @param mutationRate The mutation probability, between 0 and 1.
+     */
+    public void setMutationRate(double mutationRate) {
+        this.mutationRate = mutationRate;
+    }
 
-        // add the children to the list
-        children.add(child1);
-        children.add(child2);
+    /**
+     * Sets the crossover operator.
+     *
+     * @param crossover The crossover operator.
+     */
+    public void setCrossover(CrossoverOperator crossover) {
+        this.crossover = crossover;
+    }
 
-        return children;
+    /**
+     * Sets the mutation operator.
+     *
+     * @param mutation The mutation operator.
+     */
+    public void setMutation(MutationOperator mutation) {
+        this.mutation = mutation;
     }
 
     /**
-     * Checks if a population of patterns is valid.
+     * Gets the best distinct patterns found while evolving a population. Every
+     * individual that enters the population is offered to a bounded archive of
+     * the best patterns, so a single run yields many patterns.
      *
-     * @param population    The population of patterns to check.
-     * @param maxCoilLength The maximum length of a coil.
-     * @return True if the population is valid, false otherwise.
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator of the current run.
+     * @return The best patterns, sorted by increasing waste.
      */
-    private boolean isValidPopulation(ArrayList<ArrayList<Integer>> population, int maxCoilLength) {
-        // check if the population is valid
-        for (int i = 0; i < population.size(); i++) {
-            if (evaluatePattern(population.get(i), maxCoilLength) == -1) {
-                return false;
-            }
-        }
-        return true;
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random) {
+        return generatePatterns(count, random, Collections.emptyList());
     }
 
     /**
-     * Evaluates the fitness of a population of patterns.
+     * Gets the best distinct patterns found while evolving a population whose first
+     * individuals are the given seeds.
      *
-     * @param population    The population of patterns to evaluate.
-     * @param maxCoilLength The maximum length of a coil.
-     * @return The fitness of the population.
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator of the current run.
+     * @param seeds  Patterns placed in the initial population.
+     * @return The best patterns, sorted by increasing waste.
      */
-    private ArrayList<Integer> evaluateFitness(ArrayList<ArrayList<Integer>> population, int maxCoilLength) {
-        // create a list to store the fitness of each pattern
-        ArrayList<Integer> fitness = new ArrayList<>();
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random,
+            List<ArrayList<Integer>> seeds) {
+        HashMap<String, Integer> specs = sourceReader.getSetupSpecs();
+        int maxCoilLength = specs.get("Larg Max");
+        int maxCoilNumber = specs.get("Máx. bob/tirada");
 
-        // evaluate the fitness of each pattern
-        for (int i = 0; i < population.size(); i++) {
-            fitness.add(evaluatePattern(population.get(i), maxCoilLength));
-        }
+        Set<Integer> lengthSet = this.sourceReader.getUniqueCoilLengthsAndAmounts().keySet();
+        int[] lengths = lengthSet.stream().mapToInt(Integer::intValue).toArray();
+
+        Archive archive = new Archive(count);
+        evolve(lengths, maxCoilLength, maxCoilNumber, random, seeds, archive);
 
-        return fitness;
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = new ArrayList<>();
+        for (Individual individual : archive.sorted()) {
+            ArrayList<Integer> formatCount = new ArrayList<>(individual.genes.length);
+            for (int gene : individual.genes) {
+                formatCount.add(gene);
+            }
+            patterns.add(new Pair<>(formatCount, maxCoilLength - individual.fitness));
+        }
+        return patterns;
     }
 
     /**
-     * Selects the best patterns from a population.
+     * Runs the steady-state evolution.
      *
-     * @param population    The population of patterns to select from.
+     * @param lengths       The unique coil lengths.
      * @param maxCoilLength The maximum length of a coil.
-     * @param k             The number of best patterns to select.
-     * @return The best patterns.
+     * @param maxCoilNumber The maximum number of coils in a pattern.
+     * @param random        The random number generator of the current run.
+     * @param seeds         Patterns placed in the initial population.
+     * @param archive       The archive receiving every individual that enters the population.
      */
-    private ArrayList<ArrayList<Integer>> selectBestPatterns(ArrayList<ArrayList<Integer>> population,
-            int maxCoilLength, int k) {
-        // create a list to store the best patterns
-        ArrayList<ArrayList<Integer>> bestPatterns = new ArrayList<>();
+    private void evolve(int[] lengths, int maxCoilLength, int maxCoilNumber, Random random,
+            List<ArrayList<Integer>> seeds, Archive archive) {
+        int[][] population = new int[populationSize][lengths.length];
+        int[] fitness = new int[populationSize];
+        HashSet<Individual> present = new HashSet<>();
+
+        for (int i = 0; i < populationSize; i++) {
+            if (i < seeds.size() && seeds.get(i).size() == lengths.length) {
+                for (int j = 0; j < lengths.length; j++) {
+                    population[i][j] = seeds.get(i).get(j);
+                }
+                repair(population[i], lengths, maxCoilLength, maxCoilNumber, random);
+            } else {
+                randomPattern(population[i], lengths, maxCoilLength, maxCoilNumber, random);
+            }
+            fitness[i] = usedLength(population[i], lengths);
+            present.add(new Individual(population[i], fitness[i]));
+            archive.offer(population[i], fitness[i]);
+        }
 
-        // get fitness
-        ArrayList<Integer> fitness = evaluateFitness(population, maxCoilLength);
+        int[] child = new int[lengths.length];
+        long steps = (long) generations * populationSize;
+        for (long step = 0; step < steps; step++) {
+            int parent1 = tournament(fitness, random, true);
+            int parent2 = tournament(fitness, random, true);
+            crossover.cross(population[parent1], population[parent2], child, random);
+            if (random.nextDouble() < mutationRate) {
+                mutation.mutate(child, maxCoilNumber, random);
+            }
+            repair(child, lengths, maxCoilLength, maxCoilNumber, random);
 
-        for (int i = 0; i < k; i++) {
-            // get the index of the best pattern
-            int bestIndex = fitness.indexOf(fitness.stream().max(Integer::compare).get());
+            // Keep the population free of duplicates, so it does not collapse on a single pattern
+            int childFitness = usedLength(child, lengths);
+            if (present.contains(new Individual(child, childFitness))) {
+                continue;
+            }
 
-            // add the best pattern to the list
-            bestPatterns.add(population.get(bestIndex));
+            int loser = tournament(fitness, random, false);
+            if (childFitness >= fitness[loser]) {
+                // The key is removed before its genes are overwritten, it hashes on the contents
+                present.remove(new Individual(population[loser], fitness[loser]));
+                System.arraycopy(child, 0, population[loser], 0, child.length);
+                fitness[loser] = childFitness;
+                present.add(new Individual(population[loser], childFitness));
+                archive.offer(child, childFitness);
+            }
         }
-
-        return bestPatterns;
     }
 
     /**
-     * Generates a new population of patterns from a population.
+     * Picks the fittest (or the least fit) of a few random individuals.
      *
-     * @param population The population of patterns to generate from.
-     * @return The new population.
+     * @param fitness The cached fitness of the population.
+     * @param random  The random number generator of the current run.
+     * @param best    True to return the fittest individual, false to return the least fit.
+     * @return The index of the chosen individual.
      */
-    private ArrayList<ArrayList<Integer>> generateNewPopulation(ArrayList<ArrayList<Integer>> population) {
-        ArrayList<ArrayList<Integer>> newPopulation = new ArrayList<>();
-        for (int i = 0; i < population.size(); i++) {
-            int tenPercentPopulation = (int) (this.populationSize * 0.1);
-            for (int j = 0; j < tenPercentPopulation; j++) {
-                int randomParent1Index = (int) (Math.random() * population.size());
-                int randomParent2Index = (int) (Math.random() * population.size());
-                ArrayList<ArrayList<Integer>> children = crossOver(population.get(randomParent1Index),
-                        population.get(randomParent2Index));
-                newPopulation.add(children.get(0));
-                newPopulation.add(children.get(1));
+    private int tournament(int[] fitness, Random random, boolean best) {
+        int chosen = random.nextInt(fitness.length);
+        for (int i = 1; i < tournamentSize; i++) {
+            int candidate = random.nextInt(fitness.length);
+            if (best ? fitness[candidate] > fitness[chosen] : fitness[candidate] < fitness[chosen]) {
+                chosen = candidate;
             }
         }
-        return newPopulation;
+        return chosen;
     }
 
     /**
-     * Gets the optimal pattern for a coil.
-     *
-     * @return The optimal pattern.
+     * Fills a chromosome with random coils until the next one does not fit.
      */
-    public Pair<ArrayList<Integer>, Integer> generatePattern() {
-        HashMap<String, Integer> specs = sourceReader.getSetupSpecs();
-        int maxCoilLength = specs.get("Larg Max");
-        int maxCoilNumber = specs.get("Máx. bob/tirada");
+    private void randomPattern(int[] chromosome, int[] lengths, int maxCoilLength, int maxCoilNumber,
+            Random random) {
+        Arrays.fill(chromosome, 0);
+        int sum = 0;
+        for (int j = 0; j < maxCoilNumber; j++) {
+            int positionIndex = random.nextInt(lengths.length);
+            if (sum + lengths[positionIndex] > maxCoilLength) {
+                break;
+            }
+            chromosome[positionIndex]++;
+            sum += lengths[positionIndex];
+        }
+    }
 
-        ArrayList<ArrayList<Integer>> population = new ArrayList<>();
-        Set<Integer> lengthSet = this.sourceReader.getUniqueCoilLengthsAndAmounts().keySet();
-        ArrayList<Integer> uniqueList = new ArrayList<>(lengthSet);
-
-        for (int i = 0; i < this.populationSize; i++) {
-            ArrayList<Integer> pattern = new ArrayList<>();
-            int sum = 0;
-            for (int j = 0; j < maxCoilNumber; j++) {
-                int positionIndex = (int) (Math.random() * uniqueList.size());
-                if (sum + uniqueList.get(positionIndex) > maxCoilLength) {
-                    break;
-                }
-                pattern.add(uniqueList.get(positionIndex));
-                sum += uniqueList.get(positionIndex);
+    /**
+     * Removes random coils until the chromosome fits the coil length and the knife
+     * limit, and adds one coil if it was left empty.
+     */
+    private void repair(int[] chromosome, int[] lengths, int maxCoilLength, int maxCoilNumber, Random random) {
+        int length = 0;
+        int knives = 0;
+        for (int i = 0; i < chromosome.length; i++) {
+            chromosome[i] = Math.max(0, chromosome[i]);
+            length += chromosome[i] * lengths[i];
+            knives += chromosome[i];
+        }
+        while (length > maxCoilLength || knives > maxCoilNumber) {
+            int i = random.nextInt(chromosome.length);
+            if (chromosome[i] > 0) {
+                chromosome[i]--;
+                length -= lengths[i];
+                knives--;
             }
-            population.add(pattern);
         }
-        int tenPercentPopulation = (int) (this.populationSize * 0.1);
-        ArrayList<ArrayList<Integer>> bestPatterns = selectBestPatterns(population, maxCoilLength,
-                tenPercentPopulation);
-        ArrayList<ArrayList<Integer>> newPopulation = generateNewPopulation(bestPatterns);
-        population = newPopulation;
-
-        while (!isValidPopulation(population, maxCoilLength)) {
-            bestPatterns = selectBestPatterns(population, maxCoilLength, tenPercentPopulation);
-            newPopulation = generateNewPopulation(bestPatterns);
-            population = newPopulation;
+        if (knives == 0) {
+            randomPattern(chromosome, lengths, maxCoilLength, maxCoilNumber, random);
+        }
+    }
+
+    /**
+     * Evaluates the fitness of a pattern, the length it uses of the coil.
+     *
+     * @param chromosome The pattern to evaluate.
+     * @param lengths    The unique coil lengths.
+     * @return The used length.
+     */
+    private static int usedLength(int[] chromosome, int[] lengths) {
+        int sum = 0;
+        for (int i = 0; i < chromosome.length; i++) {
+            sum += chromosome[i] * lengths[i];
         }
+        return sum;
+    }
 
-        HashMap<Integer, Integer> baseMap = new HashMap<>();
-        for (int i = 0; i < uniqueList.size(); i++) {
-            baseMap.put(uniqueList.get(i), 0);
+    /**
+     * A chromosome with its cached fitness. Equality and hashing follow the genes,
+     * so two individuals are the same pattern only when every count matches.
+     */
+    private static final class Individual {
+        final int[] genes;
+        final int fitness;
+
+        Individual(int[] genes, int fitness) {
+            this.genes = genes;
+            this.fitness = fitness;
         }
 
-        ArrayList<Integer> bestPattern = selectBestPatterns(population, maxCoilLength, 1).get(0);
-        ArrayList<Integer> formatCount = convertPatternToFormatCount(bestPattern, baseMap, uniqueList);
-        //System.out.println(uniqueList);
-        return new Pair<>(formatCount, maxCoilLength - evaluatePattern(bestPattern, maxCoilLength));
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Individual && Arrays.equals(genes, ((Individual) other).genes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(genes);
+        }
     }
 
     /**
-     * Converts a pattern to a format count.
-     *
-     * @param pattern The pattern to convert.
-     * @param baseMap The base map.
-     * @return The format count.
+     * Keeps the best distinct individuals seen during a run, up to a fixed count.
      */
-    private ArrayList<Integer> convertPatternToFormatCount(ArrayList<Integer> pattern,
-            HashMap<Integer, Integer> baseMap, ArrayList<Integer> referenceList) {
-        HashMap<Integer, Integer> formatCount = new HashMap<>(baseMap);
-        for (int i = 0; i < pattern.size(); i++) {
-            if (formatCount.containsKey(pattern.get(i))) {
-                formatCount.put(pattern.get(i), formatCount.get(pattern.get(i)) + 1);
-            } else {
-                formatCount.put(pattern.get(i), 1);
+    private static class Archive {
+        private final int capacity;
+        private final HashSet<Individual> archived = new HashSet<>();
+
+        // The least fit archived pattern is on top, so it can be replaced
+        private final PriorityQueue<Individual> patterns =
+                new PriorityQueue<>(Comparator.comparingInt((Individual individual) -> individual.fitness));
+
+        Archive(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void offer(int[] chromosome, int fitness) {
+            if (capacity <= 0 || fitness <= 0) {
+                return;
+            }
+            if (patterns.size() >= capacity && fitness <= patterns.peek().fitness) {
+                return;
+            }
+            Individual individual = new Individual(chromosome.clone(), fitness);
+            if (!archived.add(individual)) {
+                return;
+            }
+            patterns.add(individual);
+            if (patterns.size() > capacity) {
+                archived.remove(patterns.poll());
             }
         }
-        ArrayList<Integer> formatCountList = new ArrayList<>();
-        for (int i = 0; i < referenceList.size(); i++) {
-            formatCountList.add(formatCount.get(referenceList.get(i)));
+
+        ArrayList<Individual> sorted() {
+            ArrayList<Individual> sorted = new ArrayList<>(patterns);
+            sorted.sort(Comparator.comparingInt((Individual individual) -> individual.fitness).reversed());
+            return sorted;
         }
-        return formatCountList;
     }
-
 }
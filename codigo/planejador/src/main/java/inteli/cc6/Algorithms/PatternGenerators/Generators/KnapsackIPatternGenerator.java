@@ -0,0 +1,302 @@
+package inteli.cc6.Algorithms.PatternGenerators.Generators;
+
+import inteli.cc6.Algorithms.PatternGenerators.IPatternGenerator;
+import inteli.cc6.InputReader.InputReader;
+import org.apache.commons.math3.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * This class enumerates the maximal feasible patterns for a coil with a bounded
+ * knapsack search. Instead of sampling patterns at random, it walks the widths in
+ * decreasing order and prunes every branch whose best reachable fill (computed
+ * once with dynamic programming) cannot beat the worst pattern kept so far.
+ * <p>
+ * The enumeration is a fixed list, sorted by increasing waste, and both methods cycle
+ * through it: generatePattern walks it in order and starts over at the end, and each
+ * generatePatterns call returns a slice of it picked by the given Random, wrapping
+ * around the end. A batch only depends on its Random, so shards seeded alike get the
+ * same patterns whatever the thread scheduling.
+ */
+public class KnapsackIPatternGenerator implements IPatternGenerator {
+    /**
+     * The input reader used to read the coil specifications.
+     */
+    private final InputReader sourceReader;
+
+    /**
+     * The maximum number of patterns kept, ranked by waste.
+     */
+    private final int maxPatterns;
+
+    /**
+     * The enumerated patterns, sorted by increasing waste.
+     */
+    private ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = null;
+
+    /**
+     * The position of generatePattern in the enumeration.
+     */
+    private int nextPattern = 0;
+
+    /**
+     * Creates a new KnapsackIPatternGenerator object.
+     *
+     * @param sourceReader The input reader used to read the coil specifications.
+     * @param maxPatterns  The maximum number of patterns to enumerate, keeping the ones with the least waste.
+     */
+    public KnapsackIPatternGenerator(InputReader sourceReader, int maxPatterns) {
+        if (sourceReader == null || maxPatterns <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.sourceReader = sourceReader;
+        this.maxPatterns = maxPatterns;
+    }
+
+    /**
+     * Returns the next enumerated pattern. Patterns are handed out from the least
+     * wasteful to the most wasteful, starting over once all of them were returned.
+     * The position is kept apart from generatePatterns, which never moves it.
+     *
+     * @return The pattern and its waste.
+     */
+    @Override
+    public synchronized Pair<ArrayList<Integer>, Integer> generatePattern() {
+        ArrayList<Pair<ArrayList<Integer>, Integer>> enumerated = getPatterns();
+        if (enumerated.isEmpty()) {
+            throw new RuntimeException("No feasible pattern fits the coil");
+        }
+        Pair<ArrayList<Integer>, Integer> pattern = enumerated.get(nextPattern % enumerated.size());
+        nextPattern = (nextPattern + 1) % enumerated.size();
+        return new Pair<>(new ArrayList<>(pattern.getKey()), pattern.getValue());
+    }
+
+    /**
+     * Returns count consecutive enumerated patterns, cycling through the enumeration.
+     * The enumeration is cut into slices of count patterns and the Random picks the
+     * slice the batch starts at; when count covers the whole enumeration, every pattern
+     * is returned from the least wasteful. No state is shared between calls.
+     *
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator of the current run, which picks the slice.
+     * @return The patterns and their waste, at most one copy of each.
+     */
+    @Override
+    public ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random) {
+        ArrayList<Pair<ArrayList<Integer>, Integer>> enumerated = getPatterns();
+        ArrayList<Pair<ArrayList<Integer>, Integer>> batch = new ArrayList<>();
+        if (enumerated.isEmpty() || count <= 0) {
+            return batch;
+        }
+        int size = Math.min(count, enumerated.size());
+        int slices = (enumerated.size() + size - 1) / size;
+        int start = slices > 1 ? random.nextInt(slices) * size : 0;
+        for (int i = 0; i < size; i++) {
+            Pair<ArrayList<Integer>, Integer> pattern = enumerated.get((start + i) % enumerated.size());
+            batch.add(new Pair<>(new ArrayList<>(pattern.getKey()), pattern.getValue()));
+        }
+        return batch;
+    }
+
+    /**
+     * Gets every enumerated pattern, running the enumeration on the first call.
+     *
+     * @return The maximal patterns with the least waste, sorted by increasing waste.
+     */
+    public synchronized ArrayList<Pair<ArrayList<Integer>, Integer>> getPatterns() {
+        if (patterns == null) {
+            patterns = enumeratePatterns();
+        }
+        return patterns;
+    }
+
+    /**
+     * Enumerates the maximal patterns with the least waste.
+     *
+     * @return The patterns, as counts over the unique length order, sorted by increasing waste.
+     */
+    private ArrayList<Pair<ArrayList<Integer>, Integer>> enumeratePatterns() {
+        HashMap<String, Integer> specs = sourceReader.getSetupSpecs();
+        int maxCoilLength = specs.get("Larg Max");
+        int maxCoilNumber = specs.get("Máx. bob/tirada");
+
+        HashMap<Integer, Integer> demandMap = sourceReader.getUniqueCoilLengthsAndAmounts();
+        ArrayList<Integer> uniqueList = new ArrayList<>(demandMap.keySet());
+        int size = uniqueList.size();
+
+        // Visit the widths from the largest to the smallest, so the search fills the coil early
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> uniqueList.get(i)).reversed());
+
+        // Scale the lengths by their greatest common divisor to keep the dynamic programming table small
+        int divisor = 0;
+        for (int length : uniqueList) {
+            divisor = gcd(divisor, length);
+        }
+        if (divisor == 0) {
+            return new ArrayList<>();
+        }
+        int capacity = maxCoilLength / divisor;
+
+        int[] widths = new int[size];
+        int[] bounds = new int[size];
+        for (int k = 0; k < size; k++) {
+            int length = uniqueList.get(order[k]);
+            widths[k] = length / divisor;
+            // There is no use in cutting more coils of a width than the demand asks for
+            bounds[k] = Math.min(Math.min(capacity / widths[k], maxCoilNumber), demandMap.get(length));
+        }
+
+        int[][] bestFill = bestFillTable(widths, bounds, capacity);
+
+        Search search = new Search(widths, bounds, bestFill);
+        search.run(0, capacity, maxCoilNumber);
+
+        // Convert the kept patterns back into counts over the unique length order
+        ArrayList<int[]> kept = new ArrayList<>(search.best);
+        kept.sort(Comparator.comparingInt((int[] counts) -> capacity - filled(counts, widths))
+                .thenComparing(Arrays::compare));
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> result = new ArrayList<>(kept.size());
+        for (int[] counts : kept) {
+            ArrayList<Integer> pattern = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                pattern.add(0);
+            }
+            for (int k = 0; k < size; k++) {
+                pattern.set(order[k], counts[k]);
+            }
+            result.add(new Pair<>(pattern, maxCoilLength - filled(counts, widths) * divisor));
+        }
+        return result;
+    }
+
+    /**
+     * Computes, for every suffix of the widths and every remaining capacity, the
+     * largest length that can still be filled. The knife limit is relaxed here, so
+     * the table is an upper bound used to prune the enumeration.
+     *
+     * @param widths   The scaled widths, in search order.
+     * @param bounds   The maximum count of each width.
+     * @param capacity The scaled coil length.
+     * @return The table of best fills, indexed by [first width][remaining capacity].
+     */
+    private int[][] bestFillTable(int[] widths, int[] bounds, int capacity) {
+        int size = widths.length;
+        int[][] bestFill = new int[size + 1][capacity + 1];
+        for (int k = size - 1; k >= 0; k--) {
+            for (int c = 0; c <= capacity; c++) {
+                int best = bestFill[k + 1][c];
+                for (int t = 1; t <= bounds[k] && t * widths[k] <= c; t++) {
+                    best = Math.max(best, t * widths[k] + bestFill[k + 1][c - t * widths[k]]);
+                }
+                bestFill[k][c] = best;
+            }
+        }
+        return bestFill;
+    }
+
+    /**
+     * Depth-first enumeration state, keeping the best patterns found in a bounded heap.
+     */
+    private class Search {
+        private final int[] widths;
+        private final int[] bounds;
+        private final int[][] bestFill;
+        private final int[] counts;
+        private final int capacity;
+
+        // The heap keeps the worst (least filled) pattern on top so it can be replaced
+        private final PriorityQueue<int[]> best;
+
+        Search(int[] widths, int[] bounds, int[][] bestFill) {
+            this.widths = widths;
+            this.bounds = bounds;
+            this.bestFill = bestFill;
+            this.counts = new int[widths.length];
+            this.capacity = bestFill[0].length - 1;
+            this.best = new PriorityQueue<>(Comparator.comparingInt((int[] c) -> filled(c, widths)));
+        }
+
+        void run(int k, int remaining, int knives) {
+            // Prune the branch when even the best possible fill cannot enter the heap
+            if (best.size() >= maxPatterns) {
+                int reachable = capacity - remaining + bestFill[k][remaining];
+                if (reachable <= filled(best.peek(), widths)) {
+                    return;
+                }
+            }
+
+            if (k == widths.length) {
+                if (isMaximal(remaining, knives)) {
+                    keep();
+                }
+                return;
+            }
+
+            int maxCount = Math.min(Math.min(bounds[k], remaining / widths[k]), knives);
+            for (int t = maxCount; t >= 0; t--) {
+                counts[k] = t;
+                run(k + 1, remaining - t * widths[k], knives - t);
+            }
+            counts[k] = 0;
+        }
+
+        /**
+         * A pattern is maximal when no other coil could still be cut from it.
+         */
+        private boolean isMaximal(int remaining, int knives) {
+            if (remaining == capacity) {
+                return false;
+            }
+            if (knives == 0) {
+                return true;
+            }
+            for (int k = 0; k < widths.length; k++) {
+                if (counts[k] < bounds[k] && widths[k] <= remaining) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void keep() {
+            best.add(counts.clone());
+            if (best.size() > maxPatterns) {
+                best.poll();
+            }
+        }
+    }
+
+    /**
+     * Computes the scaled length filled by a pattern.
+     *
+     * @param counts The counts of each width, in search order.
+     * @param widths The scaled widths, in search order.
+     * @return The filled length.
+     */
+    private static int filled(int[] counts, int[] widths) {
+        int sum = 0;
+        for (int k = 0; k < counts.length; k++) {
+            sum += counts[k] * widths[k];
+        }
+        return sum;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
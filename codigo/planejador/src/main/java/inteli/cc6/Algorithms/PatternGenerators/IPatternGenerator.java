@@ -2,7 +2,50 @@ package inteli.cc6.Algorithms.PatternGenerators;
 
 import org.apache.commons.math3.util.Pair;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
+/**
+ * A pattern generator produces cutting patterns, as counts over the unique coil
+ * lengths, together with their waste. Implementations must be safe to call from
+ * several threads at once, as long as each call is given its own Random.
+ */
 public interface IPatternGenerator {
-    Pair<ArrayList<Integer>, Integer> generatePattern();
+    /**
+     * Generates up to count distinct patterns in a single call, so generators can
+     * harvest many good individuals from one run instead of starting over per pattern.
+     * May return fewer patterns when no more distinct ones can be found.
+     *
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator to draw from, owned by the caller.
+     * @return The patterns and their waste.
+     */
+    ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random);
+
+    /**
+     * Generates patterns starting from known good patterns, for example the elite of
+     * another generator. Generators that keep a population place the seeds in it;
+     * the default implementation ignores them.
+     *
+     * @param count  The number of patterns to generate.
+     * @param random The random number generator to draw from, owned by the caller.
+     * @param seeds  Patterns to start from, as counts over the unique length order.
+     * @return The patterns and their waste.
+     */
+    default ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count, Random random,
+                                                                          List<ArrayList<Integer>> seeds) {
+        return generatePatterns(count, random);
+    }
+
+    default ArrayList<Pair<ArrayList<Integer>, Integer>> generatePatterns(int count) {
+        return generatePatterns(count, new Random());
+    }
+
+    default Pair<ArrayList<Integer>, Integer> generatePattern() {
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = generatePatterns(1);
+        if (patterns.isEmpty()) {
+            throw new RuntimeException("No feasible pattern was generated");
+        }
+        return patterns.get(0);
+    }
 }
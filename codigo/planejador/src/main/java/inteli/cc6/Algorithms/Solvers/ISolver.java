@@ -5,5 +5,45 @@ import inteli.cc6.Models.Result;
 import java.util.ArrayList;
 
 public interface ISolver {
-    Result solve(double [] objectiveCoefficients, ArrayList<ArrayList<Integer>> patterns, ArrayList<Integer> lengthList, ArrayList<Integer> coilList);
+    /**
+     * Solves the problem described by a sparse model.
+     * @param model the model, shared with the other solvers and not to be modified
+     * @param startingSolution how many times each pattern is cut in a known solution, may be null; it is only a hint and solvers that cannot use it solve from scratch
+     * @return the result of the optimization process
+     */
+    Result solve(ProblemModel model, double[] startingSolution);
+
+    default Result solve(double [] objectiveCoefficients, ArrayList<ArrayList<Integer>> patterns, ArrayList<Integer> lengthList, ArrayList<Integer> coilList) {
+        return solve(ProblemModel.of(objectiveCoefficients, patterns, lengthList, coilList), null);
+    }
+
+    default Result solve(double [] objectiveCoefficients, ArrayList<ArrayList<Integer>> patterns, ArrayList<Integer> lengthList, ArrayList<Integer> coilList, double[] startingSolution) {
+        return solve(ProblemModel.of(objectiveCoefficients, patterns, lengthList, coilList), startingSolution);
+    }
+
+    /**
+     * Limits the wall-clock time of the next solves. A solver that reaches the limit returns its best
+     * feasible solution with the proven lower bound attached, and fails if it has none. Solvers that
+     * cannot be interrupted ignore the limit.
+     * @param milliseconds the time limit, or 0 for no limit
+     */
+    default void setTimeLimit(long milliseconds) {
+    }
+
+    /**
+     * Returns the wall-clock limit of the next solves.
+     * @return the time limit in milliseconds, or 0 for no limit
+     */
+    default long getTimeLimit() {
+        return 0;
+    }
+
+    /**
+     * Stops the solve in progress, which then returns its best feasible solution or fails if it has
+     * none. A cancel that arrives while the model is built stops the search as soon as it starts; one
+     * that arrives while no solve is in progress is ignored. Solvers
+     * that cannot be interrupted ignore it.
+     */
+    default void cancel() {
+    }
 }
@@ -0,0 +1,192 @@
+package inteli.cc6.Algorithms.Solvers;
+
+import java.util.ArrayList;
+
+/**
+ * The ProblemModel class is the sparse form of a cutting problem, shared by every ISolver. Each
+ * pattern is a column holding only the widths it cuts, stored in compressed sparse column arrays
+ * (columnStart, rowIndex, counts); a typical pattern cuts a handful of the widths, so solvers that
+ * walk the nonzeros do a fraction of the work of a dense pattern x width loop. The row-wise view
+ * used by row-oriented solvers is built on first use.
+ * <p>
+ * The arrays are shared, not copied: callers must not modify them.
+ */
+public final class ProblemModel {
+    private final ArrayList<ArrayList<Integer>> patterns;
+    private final ArrayList<Integer> lengthList;
+    private final ArrayList<Integer> coilList;
+
+    private final double[] objective;
+    private final int[] demand;
+    private final int[] columnStart;
+    private final int[] rowIndex;
+    private final int[] counts;
+
+    private int[] rowStart = null;
+    private int[] columnIndex = null;
+    private int[] rowCounts = null;
+
+    private ProblemModel(ArrayList<ArrayList<Integer>> patterns, ArrayList<Integer> lengthList,
+                         ArrayList<Integer> coilList, double[] objective, int[] demand, int[] columnStart,
+                         int[] rowIndex, int[] counts) {
+        this.patterns = patterns;
+        this.lengthList = lengthList;
+        this.coilList = coilList;
+        this.objective = objective;
+        this.demand = demand;
+        this.columnStart = columnStart;
+        this.rowIndex = rowIndex;
+        this.counts = counts;
+    }
+
+    /**
+     * Builds the sparse model of a cutting problem.
+     * @param objectiveCoefficients the waste of each pattern
+     * @param patterns the patterns, as counts over the unique length order
+     * @param lengthList the unique coil lengths
+     * @param coilList the demanded amount of each unique coil length
+     * @return the model
+     */
+    public static ProblemModel of(double[] objectiveCoefficients, ArrayList<ArrayList<Integer>> patterns,
+                                  ArrayList<Integer> lengthList, ArrayList<Integer> coilList) {
+        if (objectiveCoefficients == null || patterns == null || lengthList == null || coilList == null)
+            throw new IllegalArgumentException();
+        if (objectiveCoefficients.length != patterns.size()) {
+            throw new IllegalArgumentException("Objective coefficients and patterns size mismatch");
+        }
+        if (lengthList.size() != coilList.size()) {
+            throw new IllegalArgumentException("Length and coil list size mismatch");
+        }
+
+        int widths = lengthList.size();
+        int[] columnStart = new int[patterns.size() + 1];
+        int nonZeros = 0;
+        for (int j = 0; j < patterns.size(); j++) {
+            ArrayList<Integer> pattern = patterns.get(j);
+            if (pattern.size() != widths) {
+                throw new IllegalArgumentException("Pattern " + j + " does not match the length list");
+            }
+            for (int i = 0; i < widths; i++) {
+                if (pattern.get(i) != 0) {
+                    nonZeros++;
+                }
+            }
+            columnStart[j + 1] = nonZeros;
+        }
+
+        int[] rowIndex = new int[nonZeros];
+        int[] counts = new int[nonZeros];
+        int k = 0;
+        for (ArrayList<Integer> pattern : patterns) {
+            for (int i = 0; i < widths; i++) {
+                int count = pattern.get(i);
+                if (count != 0) {
+                    rowIndex[k] = i;
+                    counts[k] = count;
+                    k++;
+                }
+            }
+        }
+
+        int[] demand = new int[widths];
+        for (int i = 0; i < widths; i++) {
+            demand[i] = coilList.get(i);
+        }
+
+        return new ProblemModel(patterns, lengthList, coilList, objectiveCoefficients.clone(), demand,
+                columnStart, rowIndex, counts);
+    }
+
+    public int getPatternCount() {
+        return patterns.size();
+    }
+
+    public int getWidthCount() {
+        return demand.length;
+    }
+
+    public ArrayList<ArrayList<Integer>> getPatterns() {
+        return patterns;
+    }
+
+    public ArrayList<Integer> getLengthList() {
+        return lengthList;
+    }
+
+    public ArrayList<Integer> getCoilList() {
+        return coilList;
+    }
+
+    // waste of each pattern
+    public double[] getObjective() {
+        return objective;
+    }
+
+    // demanded amount of each width
+    public int[] getDemand() {
+        return demand;
+    }
+
+    // the nonzeros of column j are at positions columnStart[j] to columnStart[j + 1] - 1
+    public int[] getColumnStart() {
+        return columnStart;
+    }
+
+    // width of each nonzero, in column order
+    public int[] getRowIndex() {
+        return rowIndex;
+    }
+
+    // coil count of each nonzero, in column order
+    public int[] getCounts() {
+        return counts;
+    }
+
+    // the nonzeros of row i are at positions rowStart[i] to rowStart[i + 1] - 1 of the row-wise view
+    public synchronized int[] getRowStart() {
+        buildRows();
+        return rowStart;
+    }
+
+    // pattern of each nonzero, in row order
+    public synchronized int[] getColumnIndex() {
+        buildRows();
+        return columnIndex;
+    }
+
+    // coil count of each nonzero, in row order
+    public synchronized int[] getRowCounts() {
+        buildRows();
+        return rowCounts;
+    }
+
+    /**
+     * Transposes the columns into the row-wise view.
+     */
+    private void buildRows() {
+        if (rowStart != null) {
+            return;
+        }
+        int[] start = new int[demand.length + 1];
+        for (int row : rowIndex) {
+            start[row + 1]++;
+        }
+        for (int i = 0; i < demand.length; i++) {
+            start[i + 1] += start[i];
+        }
+
+        int[] next = start.clone();
+        int[] columns = new int[rowIndex.length];
+        int[] values = new int[rowIndex.length];
+        for (int j = 0; j < patterns.size(); j++) {
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                int position = next[rowIndex[k]]++;
+                columns[position] = j;
+                values[position] = counts[k];
+            }
+        }
+        columnIndex = columns;
+        rowCounts = values;
+        rowStart = start;
+    }
+}
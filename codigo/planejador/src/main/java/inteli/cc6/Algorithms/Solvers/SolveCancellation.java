@@ -0,0 +1,64 @@
+package inteli.cc6.Algorithms.Solvers;
+
+/**
+ * The SolveCancellation class tracks the cancellation of the solves of one solver instance. A cancel only
+ * counts while a solve is in progress: one that arrives while the model is being built stops the search as
+ * soon as it starts, one that arrives during the search stops it right away, and one that arrives after the
+ * solve returned is ignored, so the next solve of the same instance is not affected.
+ */
+public final class SolveCancellation {
+    private boolean solving = false;
+    private boolean cancelled = false;
+    private Runnable stop = null;
+
+    /**
+     * Marks the start of a solve, before its model is built.
+     */
+    public synchronized void begin() {
+        solving = true;
+        cancelled = false;
+        stop = null;
+    }
+
+    /**
+     * Marks the start of the search.
+     * @param stop stops the search, called by cancel while the search runs
+     * @throws RuntimeException if the solve was cancelled before the search started
+     */
+    public synchronized void search(Runnable stop) {
+        if (cancelled) {
+            throw new RuntimeException("The solve was cancelled");
+        }
+        this.stop = stop;
+    }
+
+    /**
+     * Marks the end of a solve; later cancels are ignored until the next begin.
+     */
+    public synchronized void end() {
+        solving = false;
+        cancelled = false;
+        stop = null;
+    }
+
+    /**
+     * Cancels the solve in progress, if there is one.
+     */
+    public synchronized void cancel() {
+        if (!solving) {
+            return;
+        }
+        cancelled = true;
+        if (stop != null) {
+            stop.run();
+        }
+    }
+
+    /**
+     * Tells whether a solve is in progress.
+     * @return true between begin and end
+     */
+    public synchronized boolean isSolving() {
+        return solving;
+    }
+}
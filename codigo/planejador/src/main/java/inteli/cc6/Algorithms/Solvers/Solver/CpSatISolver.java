@@ -0,0 +1,205 @@
+package inteli.cc6.Algorithms.Solvers.Solver;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverStatus;
+import com.google.ortools.sat.IntVar;
+import com.google.ortools.sat.LinearExpr;
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Algorithms.Solvers.SolveCancellation;
+import inteli.cc6.Algorithms.Solvers.SolverSession;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+
+/**
+ * This class solves the cutting problem with the OR-Tools CP-SAT solver. Unlike SCIP, CP-SAT runs a
+ * portfolio of search workers in parallel, so a large pattern pool keeps every core busy.
+ * <p>
+ * CP-SAT only accepts integer coefficients: the waste of each pattern is scaled by the smallest power
+ * of ten that makes it integral, which is 1 for the usual widths in millimetres. The Result reports
+ * the waste and the proven bound in the original unit.
+ */
+public class CpSatISolver implements ISolver {
+    // largest scale tried for fractional wastes, beyond it the coefficients are rounded
+    private static final long MAX_SCALE = 1_000_000;
+
+    private long timeLimit = 0;
+    private double relativeGap = 0;
+    private int workers = 1;
+
+    // stops the search in progress on cancel
+    private final SolveCancellation cancellation = new SolveCancellation();
+
+    @Override
+    public void setTimeLimit(long milliseconds) {
+        this.timeLimit = milliseconds;
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
+
+    /**
+     * Sets the relative gap at which CP-SAT stops and reports the solution.
+     * @param relativeGap the relative gap, such as 0.01 for 1%, or 0 to search until optimality
+     */
+    public void setRelativeGap(double relativeGap) {
+        if (relativeGap < 0) {
+            throw new IllegalArgumentException("The relative gap cannot be negative");
+        }
+        this.relativeGap = relativeGap;
+    }
+
+    /**
+     * Sets the number of search workers CP-SAT runs in parallel, usually one per core.
+     * @param workers the number of workers
+     */
+    public void setWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Solves the problem with a starting solution given to CP-SAT as a hint.
+     * @param startingSolution how many times each pattern is cut in the starting solution, may be null
+     */
+    @Override
+    public Result solve(ProblemModel model, double[] startingSolution) {
+        if (model == null)
+            throw new IllegalArgumentException();
+        if (startingSolution != null && startingSolution.length != model.getPatternCount()) {
+            throw new IllegalArgumentException("Starting solution and patterns size mismatch");
+        }
+
+        SolverSession.getInstance().loadNatives();
+        cancellation.begin();
+        try {
+            return solve(model, startingSolution, new CpModel());
+        } finally {
+            cancellation.end();
+        }
+    }
+
+    /**
+     * Builds the CP-SAT model and searches it.
+     */
+    private Result solve(ProblemModel model, double[] startingSolution, CpModel cpModel) {
+        ArrayList<ArrayList<Integer>> patterns = model.getPatterns();
+        double[] objectiveCoefficients = model.getObjective();
+        int[] demands = model.getDemand();
+        int[] rowStart = model.getRowStart();
+        int[] columnIndex = model.getColumnIndex();
+        int[] rowCounts = model.getRowCounts();
+        int[] columnStart = model.getColumnStart();
+        int[] rowIndex = model.getRowIndex();
+        int[] counts = model.getCounts();
+
+        // Decision variables - how many times each pattern is used, bounded like in MIPISolver
+        IntVar[] x = new IntVar[patterns.size()];
+        long[] upperBounds = new long[patterns.size()];
+        for (int j = 0; j < patterns.size(); j++) {
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                if (counts[k] > 0) {
+                    upperBounds[j] = Math.max(upperBounds[j], (demands[rowIndex[k]] + counts[k] - 1) / counts[k]);
+                }
+            }
+            x[j] = cpModel.newIntVar(0, upperBounds[j], "pattern" + j);
+        }
+
+        // Demand constraints, one sparse row per width
+        for (int i = 0; i < demands.length; i++) {
+            int size = rowStart[i + 1] - rowStart[i];
+            IntVar[] variables = new IntVar[size];
+            long[] coefficients = new long[size];
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                variables[k - rowStart[i]] = x[columnIndex[k]];
+                coefficients[k - rowStart[i]] = rowCounts[k];
+            }
+            cpModel.addGreaterOrEqual(LinearExpr.weightedSum(variables, coefficients), demands[i]);
+        }
+
+        // Objective function - Minimum waste, scaled to integers
+        long scale = objectiveScale(objectiveCoefficients);
+        long[] scaledCoefficients = new long[patterns.size()];
+        for (int j = 0; j < patterns.size(); j++) {
+            scaledCoefficients[j] = Math.round(objectiveCoefficients[j] * scale);
+        }
+        cpModel.minimize(LinearExpr.weightedSum(x, scaledCoefficients));
+
+        if (startingSolution != null) {
+            for (int j = 0; j < x.length; j++) {
+                long hint = (long) Math.ceil(startingSolution[j] - 1e-9);
+                cpModel.addHint(x[j], Math.max(0, Math.min(hint, upperBounds[j])));
+            }
+        }
+
+        CpSolver solver = new CpSolver();
+        solver.getParameters().setNumSearchWorkers(workers);
+        if (timeLimit > 0) {
+            solver.getParameters().setMaxTimeInSeconds(timeLimit / 1000.0);
+        }
+        if (relativeGap > 0) {
+            solver.getParameters().setRelativeGapLimit(relativeGap);
+        }
+
+        cancellation.search(solver::stopSearch);
+
+        // Solve
+        CpSolverStatus status = solver.solve(cpModel);
+
+        // A limit may stop the search early, the best solution found so far is also an answer
+        if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE) {
+            throw new RuntimeException("The given problem does not have an optimal solution");
+        }
+
+        ArrayList<Pair<Double, ArrayList<Integer>>> rawResult = new ArrayList<>();
+        double waste = 0;
+        for (int j = 0; j < patterns.size(); j++) {
+            long value = solver.value(x[j]);
+            if (value > 0) {
+                rawResult.add(new Pair<>((double) value, patterns.get(j)));
+                waste += value * objectiveCoefficients[j];
+            }
+        }
+
+        Result result = new Result(UUID.randomUUID().toString(), rawResult, waste);
+        result.setLowerBound(solver.bestObjectiveBound() / scale);
+        return result;
+    }
+
+    /**
+     * Finds the smallest power of ten that turns every waste into an integer.
+     * @param objectiveCoefficients the waste of each pattern
+     * @return the scale, at most MAX_SCALE
+     */
+    private static long objectiveScale(double[] objectiveCoefficients) {
+        long scale = 1;
+        while (scale < MAX_SCALE) {
+            boolean integral = true;
+            for (double coefficient : objectiveCoefficients) {
+                double scaled = coefficient * scale;
+                if (Math.abs(scaled - Math.rint(scaled)) > 1e-6) {
+                    integral = false;
+                    break;
+                }
+            }
+            if (integral) {
+                break;
+            }
+            scale *= 10;
+        }
+        return scale;
+    }
+}
@@ -0,0 +1,113 @@
+package inteli.cc6.Algorithms.Solvers.Solver;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Algorithms.Solvers.SolveCancellation;
+import inteli.cc6.Algorithms.Solvers.SolverSession;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+
+/**
+ * This class solves the linear relaxation of the cutting problem with the OR-Tools GLOP backend.
+ * The Result holds the fractional number of times each pattern is cut, the optimal waste, which is
+ * also its lower bound, and the dual price of every width demand constraint. It scales to pools far
+ * larger than the dense simplex of SimplexISolver and is meant as the first stage of the pipeline.
+ */
+public class GlopISolver implements ISolver {
+    private long timeLimit = 0;
+
+    // stops the search in progress on cancel
+    private final SolveCancellation cancellation = new SolveCancellation();
+
+    @Override
+    public void setTimeLimit(long milliseconds) {
+        this.timeLimit = milliseconds;
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
+
+    /**
+     * Solves the linear relaxation. The starting solution is ignored.
+     */
+    @Override
+    public Result solve(ProblemModel model, double[] startingSolution) {
+        if (model == null)
+            throw new IllegalArgumentException();
+
+        ArrayList<ArrayList<Integer>> patterns = model.getPatterns();
+        double[] objectiveCoefficients = model.getObjective();
+        int[] demands = model.getDemand();
+        int[] columnStart = model.getColumnStart();
+        int[] rowIndex = model.getRowIndex();
+        int[] counts = model.getCounts();
+
+        SolverSession session = SolverSession.getInstance();
+        MPSolver solver = session.acquire("GLOP");
+        cancellation.begin();
+        try {
+            // One demand constraint per width
+            MPConstraint[] constraints = new MPConstraint[demands.length];
+            for (int i = 0; i < demands.length; i++) {
+                constraints[i] = solver.makeConstraint(demands[i], MPSolver.infinity());
+            }
+
+            // Decision variables - how many times each pattern is used
+            MPObjective objective = solver.objective();
+            MPVariable[] x = new MPVariable[patterns.size()];
+            for (int j = 0; j < patterns.size(); j++) {
+                x[j] = solver.makeNumVar(0.0, MPSolver.infinity(), "pattern" + j);
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    constraints[rowIndex[k]].setCoefficient(x[j], counts[k]);
+                }
+                objective.setCoefficient(x[j], objectiveCoefficients[j]);
+            }
+            objective.setMinimization();
+
+            if (timeLimit > 0) {
+                solver.setTimeLimit(timeLimit);
+            }
+
+            cancellation.search(solver::interruptSolve);
+
+            MPSolver.ResultStatus resultStatus = solver.solve();
+            if (resultStatus != MPSolver.ResultStatus.OPTIMAL) {
+                throw new RuntimeException("The given problem does not have an optimal solution");
+            }
+
+            ArrayList<Pair<Double, ArrayList<Integer>>> rawResult = new ArrayList<>();
+            for (int j = 0; j < patterns.size(); j++) {
+                if (x[j].solutionValue() > 0) {
+                    rawResult.add(new Pair<>(x[j].solutionValue(), patterns.get(j)));
+                }
+            }
+
+            double[] duals = new double[constraints.length];
+            for (int i = 0; i < constraints.length; i++) {
+                duals[i] = constraints[i].dualValue();
+            }
+
+            Result result = new Result(UUID.randomUUID().toString(), rawResult, objective.value());
+            result.setLowerBound(objective.value());
+            result.setDuals(duals);
+            return result;
+        } finally {
+            cancellation.end();
+            session.release("GLOP", solver);
+        }
+    }
+}
@@ -2,13 +2,18 @@ package inteli.cc6.Algorithms.Solvers.Solver;
 
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import com.google.ortools.Loader;
 import com.google.ortools.linearsolver.MPConstraint;
 import com.google.ortools.linearsolver.MPObjective;
 import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPSolverParameters;
 import com.google.ortools.linearsolver.MPVariable;
 import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Algorithms.Solvers.SolveCancellation;
+import inteli.cc6.Algorithms.Solvers.SolverSession;
 import inteli.cc6.Models.Result;
 import org.apache.commons.math3.util.Pair;
 
@@ -16,84 +21,192 @@ import org.apache.commons.math3.util.Pair;
  * This class represents a mixed-integer programming solver using the SCIP backend.
  * It solves a specific optimization problem based on the given objective coefficients,
  * patterns, length list, and coil list.
+ * <p>
+ * The search can be capped with a time limit and a relative gap. When SCIP stops on one of
+ * them with a feasible solution, that solution is returned with the proven bound attached,
+ * so the Result reports how far from optimal it may be.
  */
 public class MIPISolver implements ISolver {
+    private long timeLimit = 0;
+    private double relativeGap = 0;
+    private int threads = 1;
+    private String solverParameters = "";
+    private double maxOverproduction = -1;
+
+    // stops the search in progress on cancel
+    private final SolveCancellation cancellation = new SolveCancellation();
+
+    @Override
+    public void setTimeLimit(long milliseconds) {
+        this.timeLimit = milliseconds;
+    }
 
-    public Result solve(double [] objectiveCoefficients, ArrayList<ArrayList<Integer>> patterns, ArrayList<Integer> lengthList, ArrayList<Integer> coilList) {
-        if (objectiveCoefficients == null || patterns == null || lengthList == null || coilList == null)
-            throw new IllegalArgumentException();
-
-        ArrayList<Pair<Double, ArrayList<Integer>>> rawResult = new ArrayList<>();
-
+    @Override
+    public long getTimeLimit() {
+        return timeLimit;
+    }
 
-        // Load the native library.
-        Loader.loadNativeLibraries();
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
 
-        // Create the linear solver with the SCIP backend.
-        MPSolver solver = MPSolver.createSolver("SCIP");
-        if (solver == null) {
-            throw new RuntimeException("Could not create solver SCIP");
+    /**
+     * Sets the relative gap at which SCIP stops and reports the solution as optimal.
+     * @param relativeGap the relative gap, such as 0.01 for 1%, or 0 to keep the SCIP default
+     */
+    public void setRelativeGap(double relativeGap) {
+        if (relativeGap < 0) {
+            throw new IllegalArgumentException("The relative gap cannot be negative");
         }
+        this.relativeGap = relativeGap;
+    }
 
-        if (objectiveCoefficients.length != patterns.size()) {
-            throw new IllegalArgumentException("Objective coefficients and patterns size mismatch");
-        }
-        if (lengthList.size() != coilList.size()) {
-            throw new IllegalArgumentException("Length and coil list size mismatch");
+    /**
+     * Sets the number of threads SCIP may use.
+     * @param threads the number of threads
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
         }
+        this.threads = threads;
+    }
 
-        int largeNumber = 9999;
+    /**
+     * Sets extra SCIP parameters, in the SCIP settings file format (for example "limits/nodes = 10000").
+     * @param solverParameters the parameters, or an empty string for none
+     */
+    public void setSolverParameters(String solverParameters) {
+        this.solverParameters = solverParameters == null ? "" : solverParameters;
+    }
 
-        // Decision variables - how many times each pattern is used
-        MPVariable[] x = new MPVariable[patterns.size()];
-        for (int i = 0; i < patterns.size(); i++) {
-            x[i] = solver.makeIntVar(0.0, largeNumber, "pattern" + i);
-        }
+    /**
+     * Bounds the overproduction of every width to a fraction of its demand. This cuts the search
+     * space, but too small a fraction can make the problem infeasible for the given patterns.
+     * @param maxOverproduction the fraction of the demand that may be produced in excess, such as 0.1, or a negative value for no bound
+     */
+    public void setMaxOverproduction(double maxOverproduction) {
+        this.maxOverproduction = maxOverproduction;
+    }
 
-        // Decision variables - penalty for using each pattern
-        MPVariable[] p = new MPVariable[patterns.size()];
-        for (int i = 0; i < patterns.size(); i++) {
-            p[i] = solver.makeIntVar(0.0, largeNumber, "penalty" + i);
+    /**
+     * Solves the problem with a starting solution given to SCIP as a hint. A feasible start gives SCIP
+     * an incumbent from the first node, so it can prune the search tree much earlier.
+     * @param startingSolution how many times each pattern is cut in the starting solution, may be null
+     */
+    @Override
+    public Result solve(ProblemModel model, double[] startingSolution) {
+        if (model == null)
+            throw new IllegalArgumentException();
+
+        ArrayList<Pair<Double, ArrayList<Integer>>> rawResult = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> patterns = model.getPatterns();
+        double[] objectiveCoefficients = model.getObjective();
+        int[] demands = model.getDemand();
+        int[] columnStart = model.getColumnStart();
+        int[] rowIndex = model.getRowIndex();
+        int[] counts = model.getCounts();
+
+        if (startingSolution != null && startingSolution.length != patterns.size()) {
+            throw new IllegalArgumentException("Starting solution and patterns size mismatch");
         }
 
+        // Get a SCIP solver from the session, which loads the native library once
+        SolverSession session = SolverSession.getInstance();
+        MPSolver solver = session.acquire("SCIP");
+        cancellation.begin();
+        try {
+            // Decision variables - how many times each pattern is used. Cutting a pattern more often
+            // than its most demanded width needs only adds waste, which bounds every variable tightly
+            MPVariable[] x = new MPVariable[patterns.size()];
+            double[] upperBounds = new double[patterns.size()];
+            for (int j = 0; j < patterns.size(); j++) {
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    if (counts[k] > 0) {
+                        upperBounds[j] = Math.max(upperBounds[j], Math.ceil((double) demands[rowIndex[k]] / counts[k]));
+                    }
+                }
+                x[j] = solver.makeIntVar(0.0, upperBounds[j], "pattern" + j);
+            }
 
-        for (int i = 0; i < lengthList.size(); i++) {
-            int demand = coilList.get(i);
-            MPConstraint constraint = solver.makeConstraint(demand, largeNumber);
+            // Demand constraints, with the overproduction bound when one is set
+            MPConstraint[] constraints = new MPConstraint[demands.length];
+            for (int i = 0; i < demands.length; i++) {
+                int demand = demands[i];
+                double maxProduction = maxOverproduction >= 0
+                        ? demand + Math.ceil(demand * maxOverproduction)
+                        : MPSolver.infinity();
+                constraints[i] = solver.makeConstraint(demand, maxProduction);
+            }
+
+            // Only the nonzero counts of each pattern become coefficients
             for (int j = 0; j < patterns.size(); j++) {
-                constraint.setCoefficient(x[j], patterns.get(j).get(i));
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    constraints[rowIndex[k]].setCoefficient(x[j], counts[k]);
+                }
             }
-        }
 
+            // Objective function - Minimum waste
+            MPObjective objective = solver.objective();
+            for (int j = 0; j < patterns.size(); j++) {
+                objective.setCoefficient(x[j], objectiveCoefficients[j]);
+            }
 
-        // Objective function - Minimum waste
-        MPObjective objective = solver.objective();
-        for (int i = 0; i < patterns.size(); i++) {
-            objective.setCoefficient(x[i], objectiveCoefficients[i]);
-            objective.setCoefficient(p[i], 1.0 / patterns.size());
-        }
+            objective.setMinimization();
 
-        objective.setMinimization();
+            if (startingSolution != null) {
+                double[] hint = new double[startingSolution.length];
+                for (int j = 0; j < hint.length; j++) {
+                    hint[j] = Math.min(startingSolution[j], upperBounds[j]);
+                }
+                solver.setHint(x, hint);
+            }
 
+            if (timeLimit > 0) {
+                solver.setTimeLimit(timeLimit);
+            }
+            // SCIP builds without concurrency support refuse more than one thread and search on one
+            if (!solver.setNumThreads(threads)) {
+                Logger.getLogger(MIPISolver.class.getName()).log(Level.WARNING,
+                        "SCIP rejected {0} threads, solving on a single thread", threads);
+            }
+            if (!solverParameters.isEmpty() && !solver.setSolverSpecificParametersAsString(solverParameters)) {
+                throw new IllegalArgumentException("Invalid SCIP parameters: " + solverParameters);
+            }
 
-        // Solve
-        MPSolver.ResultStatus resultStatus = solver.solve();
+            MPSolverParameters parameters = new MPSolverParameters();
+            if (relativeGap > 0) {
+                parameters.setDoubleParam(MPSolverParameters.DoubleParam.RELATIVE_MIP_GAP, relativeGap);
+            }
 
-        if(resultStatus != MPSolver.ResultStatus.OPTIMAL) {
-            throw new RuntimeException("The given problem does not have an optimal solution");
-        }
+            cancellation.search(solver::interruptSolve);
 
-        for (int i = 0; i < patterns.size(); i++) {
-            if (x[i].solutionValue() > 0) {
-                rawResult.add(new Pair<> (x[i].solutionValue(),patterns.get(i)));
+            // Solve
+            MPSolver.ResultStatus resultStatus = solver.solve(parameters);
 
+            // A limit may stop the search early, the best solution found so far is also an answer
+            if(resultStatus != MPSolver.ResultStatus.OPTIMAL && resultStatus != MPSolver.ResultStatus.FEASIBLE) {
+                throw new RuntimeException("The given problem does not have an optimal solution");
             }
-        }
 
-        UUID randomId = UUID.randomUUID();
-        Result result = new Result(randomId.toString(), rawResult, objective.value());
+            for (int i = 0; i < patterns.size(); i++) {
+                if (x[i].solutionValue() > 0) {
+                    rawResult.add(new Pair<> (x[i].solutionValue(),patterns.get(i)));
 
-        return result;
+                }
+            }
+
+            UUID randomId = UUID.randomUUID();
+            Result result = new Result(randomId.toString(), rawResult, objective.value());
+            result.setLowerBound(objective.bestBound());
+
+            return result;
+        } finally {
+            cancellation.end();
+            // The model is freed here, the solver goes back to the session
+            session.release("SCIP", solver);
+        }
     }
 
 }
@@ -0,0 +1,236 @@
+package inteli.cc6.Algorithms.Solvers.Solver;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+
+/**
+ * This class runs several solvers at the same time on the same model and keeps the best plan. Which
+ * engine is fastest depends on the order book, so racing them gives the best one on every instance.
+ * <p>
+ * Every solver starts from the same starting solution. The best integral plan found so far and the
+ * best lower bound proven by any solver are shared: as soon as the plan meets the bound, or the time
+ * limit passes, the solvers still running are cancelled and return their own best plan. The Result
+ * carries the shared bound and the name of the solver that found it.
+ */
+public class PortfolioISolver implements ISolver {
+    // how often the cancel is repeated while waiting for the cancelled solvers
+    private static final long CANCEL_RETRY_MILLIS = 100;
+
+    private final ArrayList<Pair<String, ISolver>> solvers = new ArrayList<>();
+    private long timeLimit = 0;
+    private double optimalityGap = 1e-6;
+
+    // whether each solver is inside its solve, guarded by this
+    private boolean[] running = new boolean[0];
+    private boolean stopped = false;
+
+    /**
+     * Adds a solver to the portfolio, named after its class.
+     * @param solver the solver
+     */
+    public void addSolver(ISolver solver) {
+        addSolver(solver.getClass().getSimpleName(), solver);
+    }
+
+    /**
+     * Adds a solver to the portfolio. Each solver runs on its own thread, so the same instance must
+     * not be added twice.
+     * @param name the name recorded on the results of the solver
+     * @param solver the solver
+     */
+    public void addSolver(String name, ISolver solver) {
+        if (name == null || solver == null)
+            throw new IllegalArgumentException();
+        for (Pair<String, ISolver> entry : solvers) {
+            if (entry.getValue() == solver) {
+                throw new IllegalArgumentException("The solver is already in the portfolio");
+            }
+        }
+        solvers.add(new Pair<>(name, solver));
+    }
+
+    /**
+     * Sets the relative gap under which a plan is taken as optimal and the other solvers are cancelled.
+     * @param optimalityGap the relative gap, such as 1e-6
+     */
+    public void setOptimalityGap(double optimalityGap) {
+        if (optimalityGap < 0) {
+            throw new IllegalArgumentException("The optimality gap cannot be negative");
+        }
+        this.optimalityGap = optimalityGap;
+    }
+
+    @Override
+    public void setTimeLimit(long milliseconds) {
+        this.timeLimit = milliseconds;
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    @Override
+    public synchronized void cancel() {
+        stopped = true;
+        for (int i = 0; i < running.length; i++) {
+            if (running[i]) {
+                solvers.get(i).getValue().cancel();
+            }
+        }
+    }
+
+    /**
+     * Races the solvers of the portfolio on the model.
+     * @param startingSolution how many times each pattern is cut in a known solution, given to every solver, may be null
+     * @return the best integral plan, with the best lower bound proven by any solver and the name of its solver
+     */
+    @Override
+    public Result solve(ProblemModel model, double[] startingSolution) {
+        if (model == null)
+            throw new IllegalArgumentException();
+        if (solvers.isEmpty()) {
+            throw new IllegalStateException("The portfolio has no solvers");
+        }
+
+        int size = solvers.size();
+        synchronized (this) {
+            running = new boolean[size];
+            stopped = false;
+        }
+
+        // No solver may run past the time limit of the portfolio
+        long[] previousLimits = new long[size];
+        for (int i = 0; i < size; i++) {
+            ISolver solver = solvers.get(i).getValue();
+            previousLimits[i] = solver.getTimeLimit();
+            if (timeLimit > 0 && (previousLimits[i] == 0 || previousLimits[i] > timeLimit)) {
+                solver.setTimeLimit(timeLimit);
+            }
+        }
+        long deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1_000_000L : Long.MAX_VALUE;
+
+        ExecutorService executor = Executors.newFixedThreadPool(size);
+        try {
+            CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < size; i++) {
+                completion.submit(race(i, model, startingSolution));
+            }
+
+            Result best = null;
+            double bound = Double.NaN;
+            RuntimeException failure = null;
+            boolean cancelled = false;
+            for (int finished = 0; finished < size; finished++) {
+                Future<Result> future = null;
+                if (!cancelled) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait > 0) {
+                        future = completion.poll(wait, TimeUnit.NANOSECONDS);
+                    }
+                    if (future == null) {
+                        // The deadline passed, the solvers still running return what they have
+                        cancel();
+                        cancelled = true;
+                    }
+                }
+                // A solver may have been about to start when it was cancelled, so the cancel is repeated
+                while (future == null) {
+                    future = completion.poll(CANCEL_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                    if (future == null) {
+                        cancel();
+                    }
+                }
+
+                try {
+                    Result result = future.get();
+                    if (!Double.isNaN(result.getLowerBound())
+                            && (Double.isNaN(bound) || result.getLowerBound() > bound)) {
+                        bound = result.getLowerBound();
+                    }
+                    // Relaxations only contribute their bound
+                    if (isIntegral(result) && (best == null || result.getResultWaste() < best.getResultWaste())) {
+                        best = result;
+                    }
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+                }
+
+                if (!cancelled && best != null && !Double.isNaN(bound)
+                        && best.getResultWaste() - bound <= optimalityGap * Math.max(1, Math.abs(best.getResultWaste()))) {
+                    cancel();
+                    cancelled = true;
+                }
+            }
+
+            if (best == null) {
+                throw new RuntimeException("No solver of the portfolio found a solution", failure);
+            }
+            if (!Double.isNaN(bound)) {
+                best.setLowerBound(Math.min(bound, best.getResultWaste()));
+            }
+            return best;
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The portfolio was interrupted", e);
+        } finally {
+            executor.shutdown();
+            for (int i = 0; i < size; i++) {
+                solvers.get(i).getValue().setTimeLimit(previousLimits[i]);
+            }
+        }
+    }
+
+    /**
+     * Wraps one solver of the portfolio, marking it as running while it solves so that only the
+     * solvers still searching are cancelled.
+     */
+    private Callable<Result> race(int i, ProblemModel model, double[] startingSolution) {
+        String name = solvers.get(i).getKey();
+        ISolver solver = solvers.get(i).getValue();
+        return () -> {
+            synchronized (this) {
+                if (stopped) {
+                    throw new RuntimeException("The portfolio stopped before " + name + " started");
+                }
+                running[i] = true;
+            }
+            try {
+                Result result = solver.solve(model, startingSolution);
+                result.setSolverName(name);
+                return result;
+            } finally {
+                synchronized (this) {
+                    running[i] = false;
+                }
+            }
+        };
+    }
+
+    /**
+     * Tells whether every pattern of a result is cut a whole number of times.
+     */
+    private static boolean isIntegral(Result result) {
+        for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+            if (Math.abs(pattern.getKey() - Math.rint(pattern.getKey())) > 1e-6) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
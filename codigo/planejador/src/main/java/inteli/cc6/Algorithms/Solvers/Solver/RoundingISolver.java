@@ -0,0 +1,163 @@
+package inteli.cc6.Algorithms.Solvers.Solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+
+/**
+ * This class builds an integer plan in milliseconds by rounding the linear relaxation. The relaxation
+ * is solved by GlopISolver, every pattern count is rounded down, and the demand left uncovered is
+ * repaired greedily: the pattern of the pool that covers the most residual length is cut once more
+ * until nothing is left. A last pass drops the cuts that became unnecessary. The plan is not optimal,
+ * but the relaxation bound is attached to the Result, so its gap is known.
+ */
+public class RoundingISolver implements ISolver {
+    private final ISolver relaxationSolver;
+
+    /**
+     * Constructs a RoundingISolver object solving the relaxation with GlopISolver.
+     */
+    public RoundingISolver() {
+        this(new GlopISolver());
+    }
+
+    /**
+     * Constructs a RoundingISolver object solving the relaxation with the given solver, which must list
+     * the patterns it cuts in model order, as the same objects.
+     * @param relaxationSolver the solver of the linear relaxation
+     */
+    RoundingISolver(ISolver relaxationSolver) {
+        this.relaxationSolver = relaxationSolver;
+    }
+
+    @Override
+    public void setTimeLimit(long milliseconds) {
+        relaxationSolver.setTimeLimit(milliseconds);
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return relaxationSolver.getTimeLimit();
+    }
+
+    @Override
+    public void cancel() {
+        relaxationSolver.cancel();
+    }
+
+    /**
+     * Solves the problem by rounding and repairing its linear relaxation. The starting solution is ignored.
+     */
+    @Override
+    public Result solve(ProblemModel model, double[] startingSolution) {
+        if (model == null)
+            throw new IllegalArgumentException();
+
+        ArrayList<ArrayList<Integer>> patterns = model.getPatterns();
+        double[] objectiveCoefficients = model.getObjective();
+        int[] demands = model.getDemand();
+        int[] columnStart = model.getColumnStart();
+        int[] rowIndex = model.getRowIndex();
+        int[] counts = model.getCounts();
+        ArrayList<Integer> lengthList = model.getLengthList();
+
+        Result relaxation = relaxationSolver.solve(model, null);
+
+        // Round the relaxation down; the relaxation lists the patterns it cuts in model order, as the same objects
+        long[] cuts = new long[patterns.size()];
+        ArrayList<Pair<Double, ArrayList<Integer>>> relaxedPatterns = relaxation.getPatterns();
+        int next = 0;
+        for (int j = 0; j < patterns.size() && next < relaxedPatterns.size(); j++) {
+            if (patterns.get(j) == relaxedPatterns.get(next).getValue()) {
+                cuts[j] = (long) Math.floor(relaxedPatterns.get(next).getKey() + 1e-9);
+                next++;
+            }
+        }
+
+        long[] residual = new long[demands.length];
+        for (int i = 0; i < demands.length; i++) {
+            residual[i] = demands[i];
+        }
+        for (int j = 0; j < patterns.size(); j++) {
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                residual[rowIndex[k]] -= cuts[j] * counts[k];
+            }
+        }
+
+        // Repair: cut the pattern covering the most residual length, the least wasteful one on ties
+        while (true) {
+            int best = -1;
+            long bestCovered = 0;
+            for (int j = 0; j < patterns.size(); j++) {
+                long covered = 0;
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    if (residual[rowIndex[k]] > 0) {
+                        covered += Math.min(counts[k], residual[rowIndex[k]]) * lengthList.get(rowIndex[k]);
+                    }
+                }
+                if (covered > bestCovered
+                        || (covered == bestCovered && covered > 0 && objectiveCoefficients[j] < objectiveCoefficients[best])) {
+                    best = j;
+                    bestCovered = covered;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            cuts[best]++;
+            for (int k = columnStart[best]; k < columnStart[best + 1]; k++) {
+                residual[rowIndex[k]] -= counts[k];
+            }
+        }
+        for (long amount : residual) {
+            if (amount > 0) {
+                throw new RuntimeException("The given problem does not have a feasible solution");
+            }
+        }
+
+        // Drop the cuts that are no longer needed, the most wasteful patterns first
+        Integer[] order = new Integer[patterns.size()];
+        for (int j = 0; j < order.length; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(objectiveCoefficients[b], objectiveCoefficients[a]));
+        for (int j : order) {
+            while (cuts[j] > 0 && canDrop(j, residual, columnStart, rowIndex, counts)) {
+                cuts[j]--;
+                for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                    residual[rowIndex[k]] += counts[k];
+                }
+            }
+        }
+
+        ArrayList<Pair<Double, ArrayList<Integer>>> rawResult = new ArrayList<>();
+        double waste = 0;
+        for (int j = 0; j < patterns.size(); j++) {
+            if (cuts[j] > 0) {
+                rawResult.add(new Pair<>((double) cuts[j], patterns.get(j)));
+                waste += cuts[j] * objectiveCoefficients[j];
+            }
+        }
+
+        Result result = new Result(UUID.randomUUID().toString(), rawResult, waste);
+        result.setLowerBound(relaxation.getResultWaste());
+        return result;
+    }
+
+    /**
+     * Tells whether one cut of a pattern can be removed without leaving demand uncovered.
+     */
+    private static boolean canDrop(int j, long[] residual, int[] columnStart, int[] rowIndex, int[] counts) {
+        for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+            if (residual[rowIndex[k]] + counts[k] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -5,6 +5,8 @@
 package inteli.cc6.Algorithms.Solvers.Solver;
 
 import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import org.apache.commons.math3.linear.OpenMapRealVector;
 import org.apache.commons.math3.optim.MaxIter;
 
 import org.apache.commons.math3.optim.PointValuePair;
@@ -24,19 +26,23 @@ public class SimplexISolver implements ISolver {
     /**
      * Solves the linear programming problem using the simplex algorithm and returns the result.
      *
+     * @param model the sparse model of the problem
+     * @param startingSolution ignored, the simplex always starts from the slack basis
      * @return the result of the optimization process, including the optimal pattern and minimized waste
      */
-    public Result solve(double [] objectiveCoefficients, ArrayList<ArrayList<Integer>> patterns, ArrayList<Integer> lengthList, ArrayList<Integer> coilList) {
-        if (objectiveCoefficients == null || patterns == null || lengthList == null || coilList == null)
+    @Override
+    public Result solve(ProblemModel model, double[] startingSolution) {
+        if (model == null)
             throw new IllegalArgumentException();
 
+        ArrayList<ArrayList<Integer>> patterns = model.getPatterns();
         ArrayList<Pair<Double, ArrayList<Integer>>> rawResult = new ArrayList<>();
 
         // Define the objective function
         double constantTerm = 0;
-        LinearObjectiveFunction objective = new LinearObjectiveFunction(objectiveCoefficients, constantTerm);
+        LinearObjectiveFunction objective = new LinearObjectiveFunction(model.getObjective(), constantTerm);
 
-        LinearConstraintSet constraintSet = new LinearConstraintSet(constraintSolver(patterns, lengthList, coilList));
+        LinearConstraintSet constraintSet = new LinearConstraintSet(constraintSolver(model));
 
         // Solve the problem
         org.apache.commons.math3.optim.linear.SimplexSolver solver = new org.apache.commons.math3.optim.linear.SimplexSolver();
@@ -52,28 +58,33 @@ public class SimplexISolver implements ISolver {
 
         UUID randomId = UUID.randomUUID();
 
-        return new Result(randomId.toString(), rawResult, solution.getValue());
+        // The optimum of the relaxation is a lower bound on any plan over the same patterns
+        Result result = new Result(randomId.toString(), rawResult, solution.getValue());
+        result.setLowerBound(solution.getValue());
+        return result;
     }
 
     /**
-     * Generates the constraints for the linear programming problem based on length and coil amounts.
+     * Generates the demand constraints of the linear programming problem, one sparse row per width
+     * holding only the patterns that cut it.
      *
+     * @param model the sparse model of the problem
      * @return an array of linear constraints
      */
-    private LinearConstraint[] constraintSolver(ArrayList<ArrayList<Integer>> patterns, ArrayList<Integer> lengthList, ArrayList<Integer> coilList) {
-        LinearConstraint[] constraints = new LinearConstraint[lengthList.size()];
-
-        for (int i = 0; i < lengthList.size(); i++) {
-            double[] nonNegativity = new double[lengthList.size()];
-
-            double[] amounts = new double[patterns.size()];
-            int coilAmount = coilList.get(i);
-
-            for (int k = 0; k < patterns.size(); k++) {
-                amounts[k] += patterns.get(k).get(i);
+    private LinearConstraint[] constraintSolver(ProblemModel model) {
+        int[] demand = model.getDemand();
+        int[] rowStart = model.getRowStart();
+        int[] columnIndex = model.getColumnIndex();
+        int[] rowCounts = model.getRowCounts();
+        LinearConstraint[] constraints = new LinearConstraint[demand.length];
+
+        for (int i = 0; i < demand.length; i++) {
+            OpenMapRealVector amounts = new OpenMapRealVector(model.getPatternCount());
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                amounts.setEntry(columnIndex[k], rowCounts[k]);
             }
 
-            constraints[i] = new LinearConstraint(amounts, Relationship.GEQ, coilAmount);
+            constraints[i] = new LinearConstraint(amounts, Relationship.GEQ, demand[i]);
         }
         return constraints;
     }
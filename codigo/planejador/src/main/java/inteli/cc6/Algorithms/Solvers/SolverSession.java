@@ -0,0 +1,128 @@
+package inteli.cc6.Algorithms.Solvers;
+
+import com.google.ortools.Loader;
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SolverSession class owns the OR-Tools native state of the application. The native libraries
+ * are loaded once, and solver instances are kept per backend and handed out again once cleared, so
+ * repeated solves do not pay the startup cost of a new solver nor leak its native model.
+ * <p>
+ * A solver must be released after use; the session then clears it, or deletes it when enough idle
+ * solvers of its backend are already kept.
+ */
+public class SolverSession {
+
+    // creating the singleton structure
+    private static SolverSession uniqueInstance;
+
+    private SolverSession() {
+    }
+
+    public static synchronized SolverSession getInstance() {
+        if (uniqueInstance == null)
+            uniqueInstance = new SolverSession();
+
+        return uniqueInstance;
+    }
+
+    private boolean nativesLoaded = false;
+    private final HashMap<String, ArrayDeque<MPSolver>> idleSolvers = new HashMap<>();
+    private int maxIdleSolvers = 4;
+
+    /**
+     * Loads the OR-Tools native libraries, once per application.
+     */
+    public synchronized void loadNatives() {
+        if (!nativesLoaded) {
+            Loader.loadNativeLibraries();
+            nativesLoaded = true;
+        }
+    }
+
+    /**
+     * Sets how many idle solvers are kept per backend.
+     * @param maxIdleSolvers the maximum number of idle solvers per backend
+     */
+    public synchronized void setMaxIdleSolvers(int maxIdleSolvers) {
+        this.maxIdleSolvers = Math.max(0, maxIdleSolvers);
+    }
+
+    /**
+     * Hands out an empty solver of the given backend, reusing an idle one when there is one.
+     * @param backend the OR-Tools backend name, such as "SCIP" or "GLOP"
+     * @return the solver, to be released after use
+     */
+    public synchronized MPSolver acquire(String backend) {
+        loadNatives();
+        ArrayDeque<MPSolver> idle = idleSolvers.get(backend);
+        if (idle != null && !idle.isEmpty()) {
+            return idle.pop();
+        }
+
+        MPSolver solver = MPSolver.createSolver(backend);
+        if (solver == null) {
+            throw new RuntimeException("Could not create solver " + backend);
+        }
+        return solver;
+    }
+
+    /**
+     * Takes back a solver handed out by acquire. Its model, hints and parameters are cleared so the
+     * next user gets it empty; the solver is deleted if enough idle solvers are kept already.
+     * @param backend the backend the solver was acquired for
+     * @param solver the solver
+     */
+    public synchronized void release(String backend, MPSolver solver) {
+        ArrayDeque<MPSolver> idle = idleSolvers.computeIfAbsent(backend, key -> new ArrayDeque<>());
+        if (idle.size() >= maxIdleSolvers) {
+            solver.delete();
+            return;
+        }
+        solver.clear();
+        solver.setTimeLimit(0);
+        solver.setNumThreads(1);
+        solver.setSolverSpecificParametersAsString("");
+        idle.push(solver);
+    }
+
+    /**
+     * Loads the native libraries and solves a tiny model on each backend, so the first real solve
+     * is not slowed down by the startup of the solvers. Meant to run in the background at start.
+     */
+    public void prewarm() {
+        for (String backend : new String[]{"SCIP", "GLOP"}) {
+            MPSolver solver = acquire(backend);
+            try {
+                MPVariable x = "SCIP".equals(backend)
+                        ? solver.makeIntVar(0.0, 10.0, "x")
+                        : solver.makeNumVar(0.0, 10.0, "x");
+                MPConstraint constraint = solver.makeConstraint(1.0, MPSolver.infinity());
+                constraint.setCoefficient(x, 1.0);
+                solver.objective().setCoefficient(x, 1.0);
+                solver.objective().setMinimization();
+                solver.solve();
+            } finally {
+                release(backend, solver);
+            }
+        }
+    }
+
+    /**
+     * Deletes every idle solver. Solvers acquired later are created again.
+     */
+    public synchronized void close() {
+        for (Map.Entry<String, ArrayDeque<MPSolver>> entry : idleSolvers.entrySet()) {
+            for (MPSolver solver : entry.getValue()) {
+                solver.delete();
+            }
+        }
+        idleSolvers.clear();
+    }
+}
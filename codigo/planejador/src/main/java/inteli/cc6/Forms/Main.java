@@ -4,6 +4,8 @@
  */
 package inteli.cc6.Forms;
 
+import inteli.cc6.Algorithms.Solvers.SolverSession;
+
 /**
  *
  * @author MexSo
@@ -99,6 +101,18 @@ public class Main extends javax.swing.JFrame {
         }
         //</editor-fold>
 
+        // Load the solver natives while the splash screen is shown, so the first run is not slowed down
+        Thread prewarm = new Thread(() -> {
+            try {
+                SolverSession.getInstance().prewarm();
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        });
+        prewarm.setDaemon(true);
+        prewarm.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> SolverSession.getInstance().close()));
+
         Main sp = new Main();
         sp.setVisible(true);
 
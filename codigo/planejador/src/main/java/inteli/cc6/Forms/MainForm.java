@@ -1,10 +1,18 @@
 package inteli.cc6.Forms;
 
+import inteli.cc6.Algorithms.ExecutionPipeline.Decomposition;
+import inteli.cc6.Algorithms.ExecutionPipeline.PatternPoolCache;
+import inteli.cc6.Algorithms.ExecutionPipeline.ResultCache;
 import inteli.cc6.Algorithms.ExecutionPipeline.SolverPipeline;
+import inteli.cc6.Algorithms.PatternGenerators.Generators.EnsembleIPatternGenerator;
 import inteli.cc6.Algorithms.PatternGenerators.Generators.FireflyIPatternGenerator;
+import inteli.cc6.Algorithms.PatternGenerators.Generators.FirstFitDecreasingIPatternGenerator;
 import inteli.cc6.Algorithms.PatternGenerators.Generators.GAIPatternGenerator;
+import inteli.cc6.Algorithms.Solvers.Solver.CpSatISolver;
+import inteli.cc6.Algorithms.Solvers.Solver.GlopISolver;
 import inteli.cc6.Algorithms.Solvers.Solver.MIPISolver;
-import inteli.cc6.Algorithms.Solvers.Solver.SimplexISolver;
+import inteli.cc6.Algorithms.Solvers.Solver.PortfolioISolver;
+import inteli.cc6.Algorithms.Solvers.Solver.RoundingISolver;
 import inteli.cc6.InputReader.InputReader;
 import inteli.cc6.InputReader.Readers.Excel;
 import inteli.cc6.Models.Result;
@@ -43,6 +51,8 @@ public class MainForm extends javax.swing.JFrame {
 
     private InputReader _inputReader;
     private Result _currentResult;
+    // outlives the runs, so a sheet solved again comes back from memory
+    private final ResultCache _resultCache = new ResultCache();
 
     // Singleton instance
     Singleton singleton = Singleton.getInstance();
@@ -798,12 +808,57 @@ public class MainForm extends javax.swing.JFrame {
             protected Void doInBackground() throws Exception {
                 GAIPatternGenerator geneticPatternGenerator = new GAIPatternGenerator(_inputReader, singleton.getPopulationSize());
                 FireflyIPatternGenerator fireflyPatternGenerator = new FireflyIPatternGenerator(_inputReader, 50, 120);
-
-                SolverPipeline pipeline = new SolverPipeline(_inputReader, geneticPatternGenerator);
-                pipeline.addSolver(new SimplexISolver());
-                pipeline.addSolver(new MIPISolver());
+                FirstFitDecreasingIPatternGenerator greedyPatternGenerator = new FirstFitDecreasingIPatternGenerator(_inputReader);
+                EnsembleIPatternGenerator ensemblePatternGenerator = new EnsembleIPatternGenerator(
+                        geneticPatternGenerator, fireflyPatternGenerator, greedyPatternGenerator);
+
+                int mipThreads = singleton.getMipThreads();
+                SolverPipeline pipeline = new SolverPipeline(_inputReader, ensemblePatternGenerator);
+                pipeline.addSolver(new GlopISolver());
+                MIPISolver mipSolver = new MIPISolver();
+                mipSolver.setTimeLimit(singleton.getMipTimeLimit() * 1000L);
+                mipSolver.setRelativeGap(singleton.getMipRelativeGap());
+                mipSolver.setThreads(mipThreads);
+                mipSolver.setSolverParameters(singleton.getMipParameters());
+                // CP-SAT gets the cores SCIP leaves idle
+                CpSatISolver cpSatSolver = new CpSatISolver();
+                cpSatSolver.setRelativeGap(singleton.getMipRelativeGap());
+                cpSatSolver.setWorkers(Math.max(1, Runtime.getRuntime().availableProcessors() - mipThreads));
+                PortfolioISolver portfolio = new PortfolioISolver();
+                portfolio.addSolver("SCIP", mipSolver);
+                portfolio.addSolver("CP-SAT", cpSatSolver);
+                portfolio.addSolver("LP rounding", new RoundingISolver());
+                portfolio.setTimeLimit(singleton.getMipTimeLimit() * 1000L);
+                pipeline.addSolver(portfolio);
                 pipeline.setProgressBar(progressBar);
-                Result result = pipeline.run(singleton.getPopulation());
+                // each generation thread runs one thread per island of the ensemble
+                pipeline.setThreads(Math.max(1, Runtime.getRuntime().availableProcessors() / 3));
+                pipeline.setPatternCache(new PatternPoolCache());
+                pipeline.setAdaptiveGeneration(true);
+                pipeline.retryOnFailure = true;
+                // Very large sheets are solved group by group, one SCIP per group
+                Decomposition decomposition = new Decomposition(_inputReader);
+                decomposition.setGroups(Math.max(2, Runtime.getRuntime().availableProcessors() / mipThreads));
+                decomposition.setGroupSolver(() -> {
+                    MIPISolver groupSolver = new MIPISolver();
+                    groupSolver.setTimeLimit(singleton.getMipTimeLimit() * 1000L);
+                    groupSolver.setRelativeGap(singleton.getMipRelativeGap());
+                    groupSolver.setThreads(mipThreads);
+                    groupSolver.setSolverParameters(singleton.getMipParameters());
+                    return groupSolver;
+                });
+                pipeline.setDecomposition(decomposition);
+                pipeline.setResultCache(_resultCache);
+                pipeline.setSolverConfiguration("population=" + singleton.getPopulationSize()
+                        + ";gap=" + singleton.getMipRelativeGap()
+                        + ";threads=" + mipThreads
+                        + ";parameters=" + singleton.getMipParameters());
+                Result result;
+                try {
+                    result = pipeline.run(singleton.getPopulation());
+                } finally {
+                    ensemblePatternGenerator.close();
+                }
                 _currentResult = result;
                 historySingleton.addResult(result);
                 loadResultIntoTable(result, patternsTable);
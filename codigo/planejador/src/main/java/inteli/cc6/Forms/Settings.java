@@ -29,6 +29,11 @@ public class Settings extends javax.swing.JFrame {
         // defining the text of the field with the value of the population variable
         textPopulation.setText(populationAmountStr);
         populationSize.setText(populationStr);
+        // defining the text of the MIP solver fields
+        mipTimeLimit.setText(Integer.toString(singleton.getMipTimeLimit()));
+        mipRelativeGap.setText(Double.toString(singleton.getMipRelativeGap()));
+        mipThreads.setText(Integer.toString(singleton.getMipThreads()));
+        mipParameters.setText(singleton.getMipParameters());
     }
 
     /**
@@ -48,6 +53,14 @@ public class Settings extends javax.swing.JFrame {
         description2 = new javax.swing.JLabel();
         jLabel1 = new javax.swing.JLabel();
         populationSize = new javax.swing.JTextField();
+        mipTimeLimitLabel = new javax.swing.JLabel();
+        mipTimeLimit = new javax.swing.JTextField();
+        mipRelativeGapLabel = new javax.swing.JLabel();
+        mipRelativeGap = new javax.swing.JTextField();
+        mipThreadsLabel = new javax.swing.JLabel();
+        mipThreads = new javax.swing.JTextField();
+        mipParametersLabel = new javax.swing.JLabel();
+        mipParameters = new javax.swing.JTextField();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 
@@ -81,6 +94,20 @@ public class Settings extends javax.swing.JFrame {
 
         populationSize.setText("jTextField1");
 
+        mipTimeLimitLabel.setText("Tempo limite do MIP em segundos (0 = sem limite)");
+
+        mipTimeLimit.setText("120");
+
+        mipRelativeGapLabel.setText("Gap relativo aceito pelo MIP (0.01 = 1%, 0 = padrão do SCIP)");
+
+        mipRelativeGap.setText("0");
+
+        mipThreadsLabel.setText("Threads do MIP");
+
+        mipThreads.setText("1");
+
+        mipParametersLabel.setText("Parâmetros extras do SCIP");
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -101,9 +128,17 @@ public class Settings extends javax.swing.JFrame {
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(jLabel1)
                             .addComponent(description1)
-                            .addComponent(title))
+                            .addComponent(title)
+                            .addComponent(mipTimeLimitLabel)
+                            .addComponent(mipRelativeGapLabel)
+                            .addComponent(mipThreadsLabel)
+                            .addComponent(mipParametersLabel))
                         .addGap(0, 0, Short.MAX_VALUE))
-                    .addComponent(populationSize))
+                    .addComponent(populationSize)
+                    .addComponent(mipTimeLimit)
+                    .addComponent(mipRelativeGap)
+                    .addComponent(mipThreads)
+                    .addComponent(mipParameters))
                 .addContainerGap())
         );
         layout.setVerticalGroup(
@@ -121,6 +156,22 @@ public class Settings extends javax.swing.JFrame {
                 .addComponent(description2)
                 .addGap(12, 12, 12)
                 .addComponent(populationSize, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(mipTimeLimitLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(mipTimeLimit, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(mipRelativeGapLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(mipRelativeGap, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(mipThreadsLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(mipThreads, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(mipParametersLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(mipParameters, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, 61, Short.MAX_VALUE)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(saveBtn)
@@ -140,15 +191,48 @@ public class Settings extends javax.swing.JFrame {
     
     
     private void saveBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_saveBtnActionPerformed
-        String text = textPopulation.getText();
-        int number = Integer.parseInt(text);
+        // Parse and check every field before changing any setting, so a bad field leaves them all untouched
+        int number;
+        int number2;
+        int timeLimit;
+        double relativeGap;
+        int threads;
+        try {
+            number = Integer.parseInt(textPopulation.getText().trim());
+            number2 = Integer.parseInt(populationSize.getText().trim());
+            timeLimit = Integer.parseInt(mipTimeLimit.getText().trim());
+            relativeGap = Double.parseDouble(mipRelativeGap.getText().trim());
+            threads = Integer.parseInt(mipThreads.getText().trim());
+        } catch (NumberFormatException e) {
+            showError("Preencha os campos numéricos apenas com números.");
+            return;
+        }
+        if (timeLimit < 0) {
+            showError("O tempo limite do MIP não pode ser negativo.");
+            return;
+        }
+        if (!(relativeGap >= 0)) {
+            showError("O gap relativo do MIP não pode ser negativo.");
+            return;
+        }
+        if (threads < 1) {
+            showError("O MIP precisa de pelo menos uma thread.");
+            return;
+        }
+
         singleton.changePopulation(number);
-        String text2 = populationSize.getText();
-        int number2 = Integer.parseInt(text2);
         singleton.changePopulationSize(number2);
+        singleton.changeMipTimeLimit(timeLimit);
+        singleton.changeMipRelativeGap(relativeGap);
+        singleton.changeMipThreads(threads);
+        singleton.changeMipParameters(mipParameters.getText());
         dispose();
     }//GEN-LAST:event_saveBtnActionPerformed
 
+    private void showError(String message) {
+        javax.swing.JOptionPane.showMessageDialog(this, message, "Erro!", javax.swing.JOptionPane.ERROR_MESSAGE);
+    }
+
     private void cancelBtnActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelBtnActionPerformed
         dispose();
     }//GEN-LAST:event_cancelBtnActionPerformed
@@ -194,6 +278,14 @@ public class Settings extends javax.swing.JFrame {
     private javax.swing.JLabel description1;
     private javax.swing.JLabel description2;
     private javax.swing.JLabel jLabel1;
+    private javax.swing.JTextField mipParameters;
+    private javax.swing.JLabel mipParametersLabel;
+    private javax.swing.JTextField mipRelativeGap;
+    private javax.swing.JLabel mipRelativeGapLabel;
+    private javax.swing.JTextField mipThreads;
+    private javax.swing.JLabel mipThreadsLabel;
+    private javax.swing.JTextField mipTimeLimit;
+    private javax.swing.JLabel mipTimeLimitLabel;
     private javax.swing.JTextField populationSize;
     private javax.swing.JButton saveBtn;
     private javax.swing.JTextField textPopulation;
@@ -21,6 +21,17 @@ public class Singleton {
 
 	private int populationSize = 200;
 
+	// time limit of the MIP solver in seconds, 0 for no limit
+	private int mipTimeLimit = 120;
+
+	// relative gap at which the MIP solver stops, 0 for the solver default
+	private double mipRelativeGap = 0;
+
+	private int mipThreads = 1;
+
+	// extra SCIP parameters, in the SCIP settings file format
+	private String mipParameters = "";
+
 	// function that accesses the population variable in other scripts
 	public int getPopulation(){
 		return population;
@@ -40,4 +51,44 @@ public class Singleton {
 	public void changePopulationSize(int newPopulationSize){
 		populationSize = newPopulationSize;
 	}
+
+	// function that accesses the mipTimeLimit variable in other scripts
+	public int getMipTimeLimit(){
+		return mipTimeLimit;
+	}
+
+	// function that edits the value of the mipTimeLimit variable in other scripts
+	public void changeMipTimeLimit(int newMipTimeLimit){
+		mipTimeLimit = newMipTimeLimit;
+	}
+
+	// function that accesses the mipRelativeGap variable in other scripts
+	public double getMipRelativeGap(){
+		return mipRelativeGap;
+	}
+
+	// function that edits the value of the mipRelativeGap variable in other scripts
+	public void changeMipRelativeGap(double newMipRelativeGap){
+		mipRelativeGap = newMipRelativeGap;
+	}
+
+	// function that accesses the mipThreads variable in other scripts
+	public int getMipThreads(){
+		return mipThreads;
+	}
+
+	// function that edits the value of the mipThreads variable in other scripts
+	public void changeMipThreads(int newMipThreads){
+		mipThreads = newMipThreads;
+	}
+
+	// function that accesses the mipParameters variable in other scripts
+	public String getMipParameters(){
+		return mipParameters;
+	}
+
+	// function that edits the value of the mipParameters variable in other scripts
+	public void changeMipParameters(String newMipParameters){
+		mipParameters = newMipParameters;
+	}
 }
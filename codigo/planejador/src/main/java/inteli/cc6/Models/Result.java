@@ -8,6 +8,9 @@ public class Result {
     private final String resultId;
     private final double resultWaste;
     private final ArrayList<Pair<Double, ArrayList<Integer>>> patterns;
+    private double lowerBound = Double.NaN;
+    private double[] duals = null;
+    private String solverName = null;
 
     public Result(String resultId, ArrayList<Pair<Double, ArrayList<Integer>>> result, double waste) {
         this.resultId = resultId;
@@ -31,4 +34,42 @@ public class Result {
         return patterns.size();
     }
 
+    // proven lower bound on the waste of the model this result was solved from, NaN when unknown
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    // dual price of each width demand constraint, null when the result does not come from a linear program
+    public double[] getDuals() {
+        return duals;
+    }
+
+    public void setDuals(double[] duals) {
+        this.duals = duals;
+    }
+
+    // name of the solver that found this result, null when unknown
+    public String getSolverName() {
+        return solverName;
+    }
+
+    public void setSolverName(String solverName) {
+        this.solverName = solverName;
+    }
+
+    // relative distance between the waste of this result and the lower bound
+    public double getGap() {
+        if (Double.isNaN(lowerBound)) {
+            return Double.NaN;
+        }
+        if (Math.abs(resultWaste) < 1e-9) {
+            return 0;
+        }
+        return Math.max(0, (resultWaste - lowerBound) / Math.abs(resultWaste));
+    }
+
 }
@@ -0,0 +1,97 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import inteli.cc6.InputReader.FixedInputReader;
+import inteli.cc6.InputReader.InputReader;
+import org.junit.Test;
+
+public class ColumnGenerationTest {
+    private static final int MAX_LENGTH = 2000;
+    private static final int MAX_KNIVES = 4;
+
+    private static InputReader reader() {
+        return new FixedInputReader(MAX_LENGTH, MAX_KNIVES, new int[]{450, 600, 700, 950}, new int[]{30, 12, 8, 5});
+    }
+
+    /**
+     * The value the pricing maximizes: the sum of width plus dual price over the coils of a pattern.
+     */
+    private static double value(ArrayList<Integer> pattern, ArrayList<Integer> lengths, double[] duals) {
+        double value = 0;
+        for (int i = 0; i < pattern.size(); i++) {
+            value += pattern.get(i) * (lengths.get(i) + duals[i]);
+        }
+        return value;
+    }
+
+    /**
+     * Finds the best value by brute force over every pattern within the coil length and knife limit.
+     */
+    private static double bestValue(ArrayList<Integer> lengths, double[] duals) {
+        double best = 0;
+        int[] counts = new int[lengths.size()];
+        while (true) {
+            int used = 0;
+            int knives = 0;
+            double value = 0;
+            for (int i = 0; i < counts.length; i++) {
+                used += counts[i] * lengths.get(i);
+                knives += counts[i];
+                value += counts[i] * (lengths.get(i) + duals[i]);
+            }
+            if (used <= MAX_LENGTH && knives <= MAX_KNIVES) {
+                best = Math.max(best, value);
+            }
+
+            int i = 0;
+            while (i < counts.length && counts[i] == MAX_KNIVES) {
+                counts[i++] = 0;
+            }
+            if (i == counts.length) {
+                return best;
+            }
+            counts[i]++;
+        }
+    }
+
+    @Test
+    public void pricesTheBestFeasiblePattern() {
+        ColumnGeneration columnGeneration = new ColumnGeneration(reader());
+        ArrayList<Integer> lengths = new ArrayList<>(reader().getUniqueCoilLengthsAndAmounts().keySet());
+
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            double[] duals = new double[lengths.size()];
+            for (int i = 0; i < duals.length; i++) {
+                duals[i] = round == 0 ? 0 : random.nextDouble() * 1000;
+            }
+
+            ArrayList<Integer> pattern = columnGeneration.price(duals);
+            int used = 0;
+            int knives = 0;
+            for (int i = 0; i < pattern.size(); i++) {
+                assertTrue(pattern.get(i) >= 0);
+                used += pattern.get(i) * lengths.get(i);
+                knives += pattern.get(i);
+            }
+            assertTrue(used <= MAX_LENGTH);
+            assertTrue(knives <= MAX_KNIVES);
+            assertEquals(bestValue(lengths, duals), value(pattern, lengths, duals), 1e-6);
+        }
+    }
+
+    @Test
+    public void pricingWithoutDualsFillsTheCoil() {
+        ColumnGeneration columnGeneration = new ColumnGeneration(reader());
+        ArrayList<Integer> lengths = new ArrayList<>(reader().getUniqueCoilLengthsAndAmounts().keySet());
+
+        ArrayList<Integer> pattern = columnGeneration.price(new double[lengths.size()]);
+        // 450 + 600 + 950 fills the 2000 coil exactly
+        assertEquals(MAX_LENGTH, value(pattern, lengths, new double[lengths.size()]), 1e-9);
+    }
+}
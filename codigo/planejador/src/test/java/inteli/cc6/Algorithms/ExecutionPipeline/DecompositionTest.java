@@ -0,0 +1,207 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.InputReader.FixedInputReader;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+public class DecompositionTest {
+    private static final int MAX_LENGTH = 5000;
+    private static final int MAX_KNIVES = 6;
+
+    /**
+     * Covers the demand greedily with the pattern covering the most residual length, without natives.
+     */
+    private static class GreedyISolver implements ISolver {
+        @Override
+        public Result solve(ProblemModel model, double[] startingSolution) {
+            int[] demand = model.getDemand();
+            long[] residual = new long[demand.length];
+            for (int i = 0; i < demand.length; i++) {
+                residual[i] = demand[i];
+            }
+            long[] cuts = new long[model.getPatternCount()];
+            while (true) {
+                int best = -1;
+                long bestCovered = 0;
+                for (int j = 0; j < model.getPatternCount(); j++) {
+                    long covered = 0;
+                    for (int i = 0; i < demand.length; i++) {
+                        covered += Math.min(residual[i], model.getPatterns().get(j).get(i)) * model.getLengthList().get(i);
+                    }
+                    if (covered > bestCovered) {
+                        best = j;
+                        bestCovered = covered;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                cuts[best]++;
+                for (int i = 0; i < demand.length; i++) {
+                    residual[i] = Math.max(0, residual[i] - model.getPatterns().get(best).get(i));
+                }
+            }
+
+            ArrayList<Pair<Double, ArrayList<Integer>>> patterns = new ArrayList<>();
+            double waste = 0;
+            for (int j = 0; j < cuts.length; j++) {
+                if (cuts[j] > 0) {
+                    patterns.add(new Pair<>((double) cuts[j], model.getPatterns().get(j)));
+                    waste += cuts[j] * model.getObjective()[j];
+                }
+            }
+            return new Result(UUID.randomUUID().toString(), patterns, waste);
+        }
+    }
+
+    private static ArrayList<Integer> lengths(Random random, int widths) {
+        ArrayList<Integer> lengths = new ArrayList<>();
+        while (lengths.size() < widths) {
+            int length = 10 * (20 + random.nextInt(300));
+            if (!lengths.contains(length)) {
+                lengths.add(length);
+            }
+        }
+        return lengths;
+    }
+
+    private static ArrayList<Integer> coils(Random random, int widths) {
+        ArrayList<Integer> coils = new ArrayList<>();
+        for (int i = 0; i < widths; i++) {
+            coils.add(1 + random.nextInt(100));
+        }
+        return coils;
+    }
+
+    private static Decomposition decomposition(int groups) {
+        Decomposition decomposition = new Decomposition(new FixedInputReader(MAX_LENGTH, MAX_KNIVES, new int[0], new int[0]));
+        decomposition.setGroups(groups);
+        decomposition.setGroupSolver(GreedyISolver::new);
+        return decomposition;
+    }
+
+    private static int fit(int length) {
+        return Math.min(MAX_LENGTH / length, MAX_KNIVES);
+    }
+
+    @Test
+    public void partitionDealsEveryWidthToOneGroup() {
+        Random random = new Random(25);
+        ArrayList<Integer> lengths = lengths(random, 70);
+        ArrayList<ArrayList<Integer>> partition = decomposition(4).partition(lengths, coils(random, 70));
+
+        assertEquals(4, partition.size());
+        boolean[] seen = new boolean[lengths.size()];
+        for (ArrayList<Integer> group : partition) {
+            assertTrue(group.size() == 17 || group.size() == 18);
+            for (int k = 0; k < group.size(); k++) {
+                int i = group.get(k);
+                assertFalse(seen[i]);
+                seen[i] = true;
+                // Each group goes from the widest fit class to the narrowest
+                if (k > 0) {
+                    int previous = lengths.get(group.get(k - 1));
+                    assertTrue(fit(previous) < fit(lengths.get(i))
+                            || (fit(previous) == fit(lengths.get(i)) && previous > lengths.get(i)));
+                }
+            }
+        }
+        for (boolean width : seen) {
+            assertTrue(width);
+        }
+    }
+
+    @Test
+    public void partitionNeverMakesEmptyGroups() {
+        Random random = new Random(3);
+        ArrayList<ArrayList<Integer>> partition = decomposition(5).partition(lengths(random, 3), coils(random, 3));
+
+        assertEquals(3, partition.size());
+        for (ArrayList<Integer> group : partition) {
+            assertEquals(1, group.size());
+        }
+    }
+
+    @Test
+    public void appliesFromTheMinimumNumberOfWidths() {
+        Decomposition decomposition = decomposition(4);
+        decomposition.setMinWidths(60);
+        assertFalse(decomposition.applies(59));
+        assertTrue(decomposition.applies(60));
+        decomposition.setMinWidths(2);
+        assertFalse(decomposition.applies(3));
+    }
+
+    @Test
+    public void solveCoversTheDemandWithFeasiblePatterns() {
+        Random random = new Random(7);
+        int widths = 40;
+        ArrayList<Integer> lengths = lengths(random, widths);
+        ArrayList<Integer> coils = coils(random, widths);
+
+        // A pool of random feasible patterns across the groups
+        PatternPool pool = new PatternPool();
+        for (int p = 0; p < 300; p++) {
+            ArrayList<Integer> pattern = new ArrayList<>();
+            int used = 0;
+            int knives = 0;
+            for (int i = 0; i < widths; i++) {
+                pattern.add(0);
+            }
+            while (knives < MAX_KNIVES) {
+                int i = random.nextInt(widths);
+                if (used + lengths.get(i) > MAX_LENGTH) {
+                    break;
+                }
+                pattern.set(i, pattern.get(i) + 1);
+                used += lengths.get(i);
+                knives++;
+            }
+            pool.add(pattern, MAX_LENGTH - used);
+        }
+
+        Decomposition decomposition = decomposition(3);
+        Result result = decomposition.solve(pool, lengths, coils, model -> new GreedyISolver().solve(model, null));
+
+        long[] produced = new long[widths];
+        double waste = 0;
+        for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+            assertTrue(pattern.getKey() >= 1 && pattern.getKey() == Math.rint(pattern.getKey()));
+            int used = 0;
+            int knives = 0;
+            for (int i = 0; i < widths; i++) {
+                produced[i] += (long) (double) pattern.getKey() * pattern.getValue().get(i);
+                used += pattern.getValue().get(i) * lengths.get(i);
+                knives += pattern.getValue().get(i);
+            }
+            assertTrue(used <= MAX_LENGTH);
+            assertTrue(knives <= MAX_KNIVES);
+            waste += pattern.getKey() * (MAX_LENGTH - used);
+        }
+        for (int i = 0; i < widths; i++) {
+            assertTrue(produced[i] >= coils.get(i));
+        }
+        assertEquals(waste, result.getResultWaste(), 1e-6);
+        assertEquals("Decomposition", result.getSolverName());
+    }
+
+    @Test
+    public void solveNeedsAtLeastTwoGroups() {
+        ArrayList<Integer> lengths = new ArrayList<>();
+        lengths.add(1000);
+        ArrayList<Integer> coils = new ArrayList<>();
+        coils.add(4);
+        assertEquals(null, decomposition(2).solve(new PatternPool(), lengths, coils, model -> null));
+    }
+}
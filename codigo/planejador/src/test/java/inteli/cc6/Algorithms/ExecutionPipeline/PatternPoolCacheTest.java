@@ -0,0 +1,184 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PatternPoolCacheTest {
+    private static final ArrayList<Integer> LENGTHS = new ArrayList<>(Arrays.asList(300, 450, 700));
+    private static final int MAX_LENGTH = 2000;
+    private static final int MAX_KNIVES = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ArrayList<Integer> pattern(Integer... counts) {
+        return new ArrayList<>(Arrays.asList(counts));
+    }
+
+    private static int waste(ArrayList<Integer> pattern, ArrayList<Integer> lengths) {
+        int length = 0;
+        for (int i = 0; i < pattern.size(); i++) {
+            length += pattern.get(i) * lengths.get(i);
+        }
+        return MAX_LENGTH - length;
+    }
+
+    @SafeVarargs
+    private static PatternPool pool(ArrayList<Integer>... patterns) {
+        PatternPool pool = new PatternPool();
+        for (ArrayList<Integer> pattern : patterns) {
+            pool.add(pattern, waste(pattern, LENGTHS));
+        }
+        return pool;
+    }
+
+    private PatternPoolCache cache() {
+        return new PatternPoolCache(folder.getRoot().toPath());
+    }
+
+    /**
+     * Returns the only pool file of the cache directory.
+     */
+    private Path poolFile() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.getRoot().toPath(), "*.pool")) {
+            Path file = null;
+            for (Path path : stream) {
+                assertNull(file);
+                file = path;
+            }
+            return file;
+        }
+    }
+
+    @Test
+    public void loadKeepsThePatternsOfTheOrderBookWidths() {
+        cache().save(MAX_LENGTH, MAX_KNIVES, LENGTHS, pool(pattern(2, 0, 1), pattern(1, 2, 0), pattern(0, 0, 2)), null);
+
+        // Another order book with a subset of the widths, in another order
+        ArrayList<Integer> lengths = new ArrayList<>(Arrays.asList(700, 300));
+        PatternPool loaded = cache().load(MAX_LENGTH, MAX_KNIVES, lengths);
+
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.contains(pattern(1, 2)));
+        assertTrue(loaded.contains(pattern(2, 0)));
+        double[] objectiveCoefficients = loaded.getObjectiveCoefficients();
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(waste(loaded.getPatterns().get(i), lengths), objectiveCoefficients[i], 0);
+        }
+
+        // Other machine setups have pools of their own
+        assertEquals(0, cache().load(MAX_LENGTH, MAX_KNIVES + 1, lengths).size());
+    }
+
+    @Test
+    public void loadSkipsDamagedLines() throws IOException {
+        cache().save(MAX_LENGTH, MAX_KNIVES, LENGTHS, pool(pattern(2, 0, 1)), null);
+        long now = System.currentTimeMillis();
+        List<String> damaged = Arrays.asList(
+                "never;0;450:2",
+                now + ";0",
+                now + ";wide;450:3",
+                now + ";0;450:-1",
+                now + ";0;300:1,300:2",
+                now + ";0;300:0",
+                now + ";0;300;1",
+                now + ";0;300:1,",
+                now + ";0;300:5",
+                now + ";0;700:3",
+                now + ";0;450:1,700:1");
+        Files.write(poolFile(), damaged, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        PatternPool loaded = cache().load(MAX_LENGTH, MAX_KNIVES, LENGTHS);
+
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.contains(pattern(2, 0, 1)));
+        assertTrue(loaded.contains(pattern(0, 1, 1)));
+        assertEquals(waste(pattern(0, 1, 1), LENGTHS), loaded.getObjectiveCoefficients()[1], 0);
+    }
+
+    @Test
+    public void parseRejectsMalformedPatterns() {
+        assertEquals(pattern(1, 0, 2), PatternPoolCache.parse("300:1,700:2", LENGTHS));
+        assertNull(PatternPoolCache.parse("300:-1", LENGTHS));
+        assertNull(PatternPoolCache.parse("300:0", LENGTHS));
+        assertNull(PatternPoolCache.parse("300:1,300:2", LENGTHS));
+        assertNull(PatternPoolCache.parse("300:1,500:1", LENGTHS));
+        assertNull(PatternPoolCache.parse("300:x", LENGTHS));
+        assertNull(PatternPoolCache.parse("", LENGTHS));
+    }
+
+    @Test
+    public void saveEvictsThePatternsUnusedForTooLong() throws IOException {
+        cache().save(MAX_LENGTH, MAX_KNIVES, LENGTHS, pool(pattern(2, 0, 1), pattern(1, 2, 0), pattern(0, 0, 2)), null);
+
+        // Age every cached pattern past the limit
+        Path file = poolFile();
+        ArrayList<String> aged = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            aged.add("0" + line.substring(line.indexOf(';')));
+        }
+        Files.write(file, aged, StandardCharsets.UTF_8);
+
+        // Only the pattern of the new result is used again
+        ArrayList<Pair<Double, ArrayList<Integer>>> patterns = new ArrayList<>();
+        patterns.add(new Pair<>(3.0, pattern(1, 2, 0)));
+        Result result = new Result(UUID.randomUUID().toString(), patterns, 3.0 * waste(pattern(1, 2, 0), LENGTHS));
+        PatternPoolCache cache = cache();
+        cache.setMaxAgeDays(30);
+        cache.save(MAX_LENGTH, MAX_KNIVES, LENGTHS, new PatternPool(), result);
+
+        PatternPool loaded = cache().load(MAX_LENGTH, MAX_KNIVES, LENGTHS);
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.contains(pattern(1, 2, 0)));
+    }
+
+    @Test
+    public void saveKeepsTheLeastWastefulPatterns() {
+        PatternPoolCache cache = cache();
+        cache.setMaxPatterns(2);
+        cache.save(MAX_LENGTH, MAX_KNIVES, LENGTHS, pool(pattern(1, 0, 0), pattern(2, 0, 1), pattern(0, 1, 1),
+                pattern(0, 0, 2)), null);
+
+        PatternPool loaded = cache().load(MAX_LENGTH, MAX_KNIVES, LENGTHS);
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.contains(pattern(2, 0, 1)));
+        assertTrue(loaded.contains(pattern(0, 0, 2)));
+    }
+
+    @Test
+    public void aRunIsWarmOnlyWhenTheCachedPoolCoversEveryWidth() {
+        // An unrelated order book that shares a single width with the cached pool
+        cache().save(MAX_LENGTH, MAX_KNIVES, LENGTHS, pool(pattern(2, 0, 1), pattern(1, 2, 0), pattern(0, 0, 2)), null);
+        ArrayList<Integer> lengths = new ArrayList<>(Arrays.asList(700, 900, 1300));
+        PatternPool unrelated = cache().load(MAX_LENGTH, MAX_KNIVES, lengths);
+        assertEquals(1, unrelated.size());
+        assertFalse(PatternPoolCache.isWarm(unrelated, lengths.size()));
+
+        PatternPool covering = pool(pattern(2, 0, 1), pattern(1, 2, 0), pattern(0, 1, 2), pattern(4, 0, 0),
+                pattern(0, 0, 2));
+        assertFalse(PatternPoolCache.isWarm(covering, LENGTHS.size()));
+        covering.add(pattern(0, 3, 0), waste(pattern(0, 3, 0), LENGTHS));
+        assertTrue(PatternPoolCache.isWarm(covering, LENGTHS.size()));
+
+        assertFalse(PatternPoolCache.isWarm(new PatternPool(), LENGTHS.size()));
+    }
+}
@@ -0,0 +1,179 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PatternPoolTest {
+    private static final ArrayList<Integer> LENGTHS = new ArrayList<>(Arrays.asList(300, 450, 700, 1100));
+    private static final int MAX_LENGTH = 2500;
+    private static final int MAX_KNIVES = 5;
+
+    private static ArrayList<Integer> pattern(Integer... counts) {
+        return new ArrayList<>(Arrays.asList(counts));
+    }
+
+    private static int usedLength(ArrayList<Integer> pattern) {
+        int length = 0;
+        for (int i = 0; i < pattern.size(); i++) {
+            length += pattern.get(i) * LENGTHS.get(i);
+        }
+        return length;
+    }
+
+    private static int knives(ArrayList<Integer> pattern) {
+        int knives = 0;
+        for (int count : pattern) {
+            knives += count;
+        }
+        return knives;
+    }
+
+    private static boolean feasible(ArrayList<Integer> pattern) {
+        return usedLength(pattern) <= MAX_LENGTH && knives(pattern) <= MAX_KNIVES;
+    }
+
+    private static boolean dominates(ArrayList<Integer> a, ArrayList<Integer> b) {
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) < b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static PatternPool randomPool(long seed) {
+        Random random = new Random(seed);
+        PatternPool pool = new PatternPool();
+        for (int p = 0; p < 200; p++) {
+            ArrayList<Integer> pattern = new ArrayList<>();
+            for (int i = 0; i < LENGTHS.size(); i++) {
+                pattern.add(random.nextInt(3));
+            }
+            pool.add(pattern, MAX_LENGTH - usedLength(pattern));
+        }
+        return pool;
+    }
+
+    @Test
+    public void keepsEachPatternOnce() {
+        PatternPool pool = new PatternPool();
+        assertTrue(pool.add(pattern(1, 2, 0), 100));
+        assertTrue(pool.add(pattern(0, 2, 1), 50));
+        assertFalse(pool.add(pattern(1, 2, 0), 100));
+        assertTrue(pool.add(pattern(2, 1, 0), 75));
+
+        assertEquals(3, pool.size());
+        assertTrue(pool.contains(pattern(0, 2, 1)));
+        assertFalse(pool.contains(pattern(0, 0, 1)));
+    }
+
+    @Test
+    public void dropsEmptyPatterns() {
+        PatternPool pool = new PatternPool();
+        assertFalse(pool.add(pattern(0, 0, 0), 1000));
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void keepsTheWasteAlignedWithThePatterns() {
+        PatternPool pool = new PatternPool();
+        pool.add(pattern(1, 0), 10);
+        pool.add(pattern(1, 0), 99);
+        pool.add(pattern(0, 1), 20);
+
+        assertEquals(pattern(0, 1), pool.getPatterns().get(1));
+        assertEquals(10, pool.getObjectiveCoefficients()[0], 0);
+        assertEquals(20, pool.getObjectiveCoefficients()[1], 0);
+    }
+
+    @Test
+    public void separatesPatternsSpanningSeveralKeyWords() {
+        // Five widths take two words of the packed key
+        PatternPool pool = new PatternPool();
+        assertTrue(pool.add(pattern(0, 0, 0, 0, 1), 1));
+        assertTrue(pool.add(pattern(1, 0, 0, 0, 0), 1));
+        assertFalse(pool.add(pattern(0, 0, 0, 0, 1), 1));
+        assertEquals(2, pool.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeCounts() {
+        new PatternPool().add(pattern(1, -1), 0);
+    }
+
+    @Test
+    public void pruningKeepsOnlyMaximalNonDominatedPatterns() {
+        PatternPool pool = randomPool(5);
+        PatternPool pruned = pool.pruneDominated(LENGTHS, MAX_LENGTH, MAX_KNIVES);
+
+        ArrayList<ArrayList<Integer>> patterns = pruned.getPatterns();
+        for (int p = 0; p < patterns.size(); p++) {
+            ArrayList<Integer> pattern = patterns.get(p);
+            assertTrue(feasible(pattern));
+            assertEquals(MAX_LENGTH - usedLength(pattern), pruned.getObjectiveCoefficients()[p], 0);
+            // No coil fits any more
+            for (int i = 0; i < LENGTHS.size(); i++) {
+                pattern.set(i, pattern.get(i) + 1);
+                assertFalse(feasible(pattern));
+                pattern.set(i, pattern.get(i) - 1);
+            }
+            for (int q = 0; q < patterns.size(); q++) {
+                assertTrue(q == p || !dominates(patterns.get(q), pattern));
+            }
+        }
+    }
+
+    @Test
+    public void pruningStillCoversEveryFeasiblePattern() {
+        PatternPool pool = randomPool(9);
+        PatternPool pruned = pool.pruneDominated(LENGTHS, MAX_LENGTH, MAX_KNIVES);
+
+        int feasible = 0;
+        for (ArrayList<Integer> pattern : pool.getPatterns()) {
+            if (!feasible(pattern)) {
+                continue;
+            }
+            feasible++;
+            boolean covered = false;
+            for (ArrayList<Integer> kept : pruned.getPatterns()) {
+                covered |= dominates(kept, pattern);
+            }
+            assertTrue(covered);
+        }
+        assertTrue(feasible > 0);
+        assertTrue(pruned.size() <= feasible);
+    }
+
+    @Test
+    public void coversTheWidthsNoPatternCuts() {
+        PatternPool pool = new PatternPool();
+        pool.add(pattern(5, 0, 0, 0), MAX_LENGTH - 1500);
+        assertEquals(Arrays.asList(1, 2, 3), pool.uncoveredWidths(LENGTHS.size()));
+
+        int added = pool.coverWidths(LENGTHS, MAX_LENGTH, MAX_KNIVES);
+        assertEquals(pool.size() - 1, added);
+        assertTrue(pool.uncoveredWidths(LENGTHS.size()).isEmpty());
+        for (int p = 0; p < pool.size(); p++) {
+            ArrayList<Integer> pattern = pool.getPatterns().get(p);
+            assertTrue(feasible(pattern));
+            assertEquals(MAX_LENGTH - usedLength(pattern), pool.getObjectiveCoefficients()[p], 0);
+        }
+        // The homogeneous pattern of the widest coil
+        assertTrue(pool.contains(pattern(0, 0, 0, 2)));
+        assertEquals(0, pool.coverWidths(LENGTHS, MAX_LENGTH, MAX_KNIVES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void coveringAWidthLargerThanTheCoilFails() {
+        PatternPool pool = new PatternPool();
+        pool.add(pattern(1, 0, 0, 0), MAX_LENGTH - 300);
+        pool.coverWidths(LENGTHS, 1000, MAX_KNIVES);
+    }
+}
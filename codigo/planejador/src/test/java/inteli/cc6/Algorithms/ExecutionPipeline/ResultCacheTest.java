@@ -0,0 +1,179 @@
+package inteli.cc6.Algorithms.ExecutionPipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResultCacheTest {
+    private static final ArrayList<Integer> LENGTHS = new ArrayList<>(Arrays.asList(300, 450, 700));
+    private static final String CONFIGURATION = "iterations=100";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ArrayList<Integer> pattern(Integer... counts) {
+        return new ArrayList<>(Arrays.asList(counts));
+    }
+
+    private static HashMap<String, Integer> setup(int maxLength) {
+        HashMap<String, Integer> setupSpecs = new HashMap<>();
+        setupSpecs.put("Larg Max", maxLength);
+        setupSpecs.put("Máx. bob/tirada", 4);
+        return setupSpecs;
+    }
+
+    private static HashMap<Integer, Integer> demand(int... amounts) {
+        HashMap<Integer, Integer> demandMap = new HashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            if (amounts[i] > 0) {
+                demandMap.put(LENGTHS.get(i), amounts[i]);
+            }
+        }
+        return demandMap;
+    }
+
+    private static Result result(double waste) {
+        ArrayList<Pair<Double, ArrayList<Integer>>> patterns = new ArrayList<>();
+        patterns.add(new Pair<>(3.0, pattern(2, 0, 1)));
+        patterns.add(new Pair<>(2.0, pattern(0, 3, 0)));
+        Result result = new Result(UUID.randomUUID().toString(), patterns, waste);
+        result.setLowerBound(waste - 100);
+        result.setSolverName("MIP");
+        return result;
+    }
+
+    private ResultCache cache() {
+        return new ResultCache(folder.getRoot().toPath());
+    }
+
+    private List<Path> resultFiles() throws IOException {
+        ArrayList<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.getRoot().toPath(), "*.result")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    @Test
+    public void getReturnsTheStoredResultFromDisk() {
+        cache().put(demand(6, 6, 3), setup(2000), CONFIGURATION, LENGTHS, result(1800));
+
+        // A new cache only has the disk tier, and another order of the widths
+        ArrayList<Integer> lengths = new ArrayList<>(Arrays.asList(700, 300, 450));
+        Result stored = cache().get(demand(6, 6, 3), setup(2000), CONFIGURATION, lengths);
+
+        assertNotNull(stored);
+        assertEquals(1800, stored.getResultWaste(), 0);
+        assertEquals(1700, stored.getLowerBound(), 0);
+        assertEquals("MIP", stored.getSolverName());
+        assertEquals(2, stored.getPatterns().size());
+        assertEquals(3.0, stored.getPatterns().get(0).getKey(), 0);
+        assertEquals(pattern(1, 2, 0), stored.getPatterns().get(0).getValue());
+        assertEquals(pattern(0, 0, 3), stored.getPatterns().get(1).getValue());
+    }
+
+    @Test
+    public void getMissesOtherOrderBooksAndSetups() {
+        ResultCache cache = cache();
+        cache.put(demand(6, 6, 3), setup(2000), CONFIGURATION, LENGTHS, result(1800));
+
+        assertNull(cache.get(demand(6, 6, 4), setup(2000), CONFIGURATION, LENGTHS));
+        assertNull(cache.get(demand(6, 6, 3), setup(2100), CONFIGURATION, LENGTHS));
+        assertNull(cache.get(demand(6, 6, 3), setup(2000), "iterations=200", LENGTHS));
+        assertNotNull(cache.get(demand(6, 6, 3), setup(2000), CONFIGURATION, LENGTHS));
+    }
+
+    @Test
+    public void memoryKeepsTheMostRecentResults() throws IOException {
+        ResultCache cache = cache();
+        cache.setMaxMemoryEntries(1);
+        cache.put(demand(6, 6, 3), setup(2000), CONFIGURATION, LENGTHS, result(1800));
+        cache.put(demand(2, 2, 2), setup(2000), CONFIGURATION, LENGTHS, result(900));
+
+        // Without the disk tier, only the last result is left
+        for (Path file : resultFiles()) {
+            Files.delete(file);
+        }
+        assertNull(cache.get(demand(6, 6, 3), setup(2000), CONFIGURATION, LENGTHS));
+        assertEquals(900, cache.get(demand(2, 2, 2), setup(2000), CONFIGURATION, LENGTHS).getResultWaste(), 0);
+    }
+
+    @Test
+    public void diskEvictsTheLeastRecentlyUsedResults() throws IOException, InterruptedException {
+        cache().put(demand(1, 0, 0), setup(2000), CONFIGURATION, LENGTHS, result(100));
+        Thread.sleep(20);
+        cache().put(demand(2, 0, 0), setup(2000), CONFIGURATION, LENGTHS, result(200));
+        Thread.sleep(20);
+        assertNotNull(cache().get(demand(1, 0, 0), setup(2000), CONFIGURATION, LENGTHS));
+        Thread.sleep(20);
+
+        ResultCache cache = cache();
+        cache.setMaxDiskEntries(2);
+        cache.put(demand(3, 0, 0), setup(2000), CONFIGURATION, LENGTHS, result(300));
+
+        assertEquals(2, resultFiles().size());
+        assertNotNull(cache().get(demand(1, 0, 0), setup(2000), CONFIGURATION, LENGTHS));
+        assertNull(cache().get(demand(2, 0, 0), setup(2000), CONFIGURATION, LENGTHS));
+        assertNotNull(cache().get(demand(3, 0, 0), setup(2000), CONFIGURATION, LENGTHS));
+    }
+
+    @Test
+    public void getChecksTheOrderBookBehindTheFingerprint() throws IOException {
+        cache().put(demand(6, 6, 3), setup(2000), CONFIGURATION, LENGTHS, result(1800));
+
+        // Make the file behind the fingerprint hold another order book, as a hash collision would
+        Path file = resultFiles().get(0);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        lines.set(1, "300:1");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        assertNull(cache().get(demand(6, 6, 3), setup(2000), CONFIGURATION, LENGTHS));
+    }
+
+    @Test
+    public void similarPatternsComeFromTheClosestOrderBook() {
+        ResultCache cache = cache();
+        cache.put(demand(10, 10, 0), setup(2000), CONFIGURATION, LENGTHS, result(1800));
+
+        // 18 of 20 coils are shared; the pattern cutting 700 is dropped for an order book without it
+        ArrayList<Integer> lengths = new ArrayList<>(Arrays.asList(450, 300));
+        HashMap<Integer, Integer> similar = new HashMap<>();
+        similar.put(300, 10);
+        similar.put(450, 8);
+        ArrayList<ArrayList<Integer>> patterns = cache.similarPatterns(similar, setup(2000), CONFIGURATION, lengths);
+        assertEquals(1, patterns.size());
+        assertEquals(pattern(3, 0), patterns.get(0));
+
+        // The disk index finds it too
+        assertEquals(1, cache().similarPatterns(similar, setup(2000), CONFIGURATION, lengths).size());
+
+        assertTrue(cache.similarPatterns(similar, setup(2100), CONFIGURATION, lengths).isEmpty());
+        cache.setMinSimilarity(0.95);
+        assertTrue(cache.similarPatterns(similar, setup(2000), CONFIGURATION, lengths).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void similarityThresholdMustBeAShare() {
+        cache().setMinSimilarity(1.5);
+    }
+}
@@ -0,0 +1,103 @@
+package inteli.cc6.Algorithms.PatternGenerators.Generators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import inteli.cc6.InputReader.FixedInputReader;
+import inteli.cc6.InputReader.InputReader;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+public class FirstFitDecreasingIPatternGeneratorTest {
+
+    private static InputReader randomReader(long seed) {
+        Random random = new Random(seed);
+        int orders = 5 + random.nextInt(20);
+        int[] lengths = new int[orders];
+        int[] amounts = new int[orders];
+        for (int i = 0; i < orders; i++) {
+            lengths[i] = 10 * (20 + random.nextInt(400));
+            amounts[i] = 1 + random.nextInt(200);
+        }
+        return new FixedInputReader(5000, 2 + random.nextInt(6), lengths, amounts);
+    }
+
+    @Test
+    public void solveCutsExactlyTheDemand() {
+        for (long seed = 0; seed < 20; seed++) {
+            InputReader reader = randomReader(seed);
+            int maxLength = reader.getSetupSpecs().get("Larg Max");
+            int maxKnives = reader.getSetupSpecs().get("Máx. bob/tirada");
+            HashMap<Integer, Integer> demand = reader.getUniqueCoilLengthsAndAmounts();
+            ArrayList<Integer> lengths = new ArrayList<>(demand.keySet());
+
+            Result result = new FirstFitDecreasingIPatternGenerator(reader).solve();
+
+            long[] cut = new long[lengths.size()];
+            double waste = 0;
+            for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+                double rolls = pattern.getKey();
+                assertTrue(rolls >= 1 && rolls == Math.rint(rolls));
+                int used = 0;
+                int knives = 0;
+                for (int i = 0; i < lengths.size(); i++) {
+                    cut[i] += (long) rolls * pattern.getValue().get(i);
+                    used += pattern.getValue().get(i) * lengths.get(i);
+                    knives += pattern.getValue().get(i);
+                }
+                assertTrue(used <= maxLength);
+                assertTrue(knives >= 1 && knives <= maxKnives);
+                waste += rolls * (maxLength - used);
+            }
+            for (int i = 0; i < lengths.size(); i++) {
+                assertEquals((long) demand.get(lengths.get(i)), cut[i]);
+            }
+            assertEquals(waste, result.getResultWaste(), 1e-6);
+        }
+    }
+
+    @Test
+    public void solvePairsTheWidthsThatFillARoll() {
+        InputReader reader = new FixedInputReader(1000, 5, new int[]{600, 400}, new int[]{2, 2});
+        Result result = new FirstFitDecreasingIPatternGenerator(reader).solve();
+
+        assertEquals(0, result.getResultWaste(), 0);
+        assertEquals(1, result.getPatterns().size());
+        assertEquals(2, result.getPatterns().get(0).getKey(), 0);
+    }
+
+    @Test
+    public void generatesDistinctPatternsSortedByWaste() {
+        InputReader reader = randomReader(3);
+        int maxLength = reader.getSetupSpecs().get("Larg Max");
+        ArrayList<Integer> lengths = new ArrayList<>(reader.getUniqueCoilLengthsAndAmounts().keySet());
+        FirstFitDecreasingIPatternGenerator generator = new FirstFitDecreasingIPatternGenerator(reader);
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = generator.generatePatterns(1000, new Random(1));
+        assertEquals(patterns.size(), new HashSet<>(patterns).size());
+        for (int p = 0; p < patterns.size(); p++) {
+            int used = 0;
+            for (int i = 0; i < lengths.size(); i++) {
+                used += patterns.get(p).getKey().get(i) * lengths.get(i);
+            }
+            assertEquals(maxLength - used, (int) patterns.get(p).getValue());
+            if (p > 0) {
+                assertTrue(patterns.get(p - 1).getValue() <= patterns.get(p).getValue());
+            }
+        }
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> best = generator.generatePatterns(3, new Random(2));
+        assertEquals(new ArrayList<>(patterns.subList(0, 3)), best);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void widthLargerThanTheRollFails() {
+        new FirstFitDecreasingIPatternGenerator(new FixedInputReader(1000, 3, new int[]{1200}, new int[]{1})).solve();
+    }
+}
@@ -0,0 +1,123 @@
+package inteli.cc6.Algorithms.PatternGenerators.Generators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import inteli.cc6.InputReader.FixedInputReader;
+import inteli.cc6.InputReader.InputReader;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+public class KnapsackIPatternGeneratorTest {
+    private static final int MAX_LENGTH = 1000;
+    private static final int MAX_KNIVES = 3;
+
+    private static InputReader reader() {
+        return new FixedInputReader(MAX_LENGTH, MAX_KNIVES, new int[]{300, 400, 500, 300}, new int[]{2, 5, 1, 3});
+    }
+
+    /**
+     * Lists every maximal pattern by brute force: feasible, never cutting more coils of a width than
+     * demanded, and no coil still demanded fits in what is left.
+     */
+    private static HashMap<ArrayList<Integer>, Integer> bruteForce(InputReader reader) {
+        HashMap<Integer, Integer> demand = reader.getUniqueCoilLengthsAndAmounts();
+        ArrayList<Integer> lengths = new ArrayList<>(demand.keySet());
+        HashMap<ArrayList<Integer>, Integer> patterns = new HashMap<>();
+        int[] counts = new int[lengths.size()];
+        while (true) {
+            int used = 0;
+            int knives = 0;
+            boolean demanded = true;
+            for (int i = 0; i < counts.length; i++) {
+                used += counts[i] * lengths.get(i);
+                knives += counts[i];
+                demanded &= counts[i] <= demand.get(lengths.get(i));
+            }
+            if (demanded && knives > 0 && knives <= MAX_KNIVES && used <= MAX_LENGTH) {
+                boolean maximal = knives == MAX_KNIVES;
+                if (!maximal) {
+                    maximal = true;
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] < demand.get(lengths.get(i)) && used + lengths.get(i) <= MAX_LENGTH) {
+                            maximal = false;
+                        }
+                    }
+                }
+                if (maximal) {
+                    ArrayList<Integer> pattern = new ArrayList<>();
+                    for (int count : counts) {
+                        pattern.add(count);
+                    }
+                    patterns.put(pattern, MAX_LENGTH - used);
+                }
+            }
+
+            int i = 0;
+            while (i < counts.length && counts[i] == MAX_KNIVES) {
+                counts[i++] = 0;
+            }
+            if (i == counts.length) {
+                return patterns;
+            }
+            counts[i]++;
+        }
+    }
+
+    @Test
+    public void enumeratesEveryMaximalPattern() {
+        HashMap<ArrayList<Integer>, Integer> expected = bruteForce(reader());
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = new KnapsackIPatternGenerator(reader(), 1000).getPatterns();
+
+        assertEquals(expected.size(), patterns.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            Pair<ArrayList<Integer>, Integer> pattern = patterns.get(i);
+            assertEquals(expected.get(pattern.getKey()), pattern.getValue());
+            if (i > 0) {
+                assertTrue(patterns.get(i - 1).getValue() <= pattern.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void keepsTheLeastWastefulPatterns() {
+        ArrayList<Integer> wastes = new ArrayList<>(bruteForce(reader()).values());
+        wastes.sort(null);
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> patterns = new KnapsackIPatternGenerator(reader(), 3).getPatterns();
+        assertEquals(3, patterns.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            assertEquals(wastes.get(i), patterns.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void batchesOnlyDependOnTheirRandom() {
+        KnapsackIPatternGenerator generator = new KnapsackIPatternGenerator(reader(), 1000);
+        int size = generator.getPatterns().size();
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> first = generator.generatePatterns(2, new Random(3));
+        generator.generatePattern();
+        generator.generatePatterns(2, new Random(4));
+        assertEquals(first, generator.generatePatterns(2, new Random(3)));
+
+        ArrayList<Pair<ArrayList<Integer>, Integer>> all = generator.generatePatterns(size + 5, new Random(3));
+        assertEquals(generator.getPatterns(), all);
+        assertEquals(size, new HashSet<>(all).size());
+    }
+
+    @Test
+    public void generatePatternCyclesThroughTheEnumeration() {
+        KnapsackIPatternGenerator generator = new KnapsackIPatternGenerator(reader(), 1000);
+        int size = generator.getPatterns().size();
+
+        for (int i = 0; i < 2 * size; i++) {
+            assertEquals(generator.getPatterns().get(i % size), generator.generatePattern());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package inteli.cc6.Algorithms.Solvers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ProblemModelTest {
+    private static final int WIDTHS = 7;
+    private static final int PATTERNS = 40;
+
+    private static ArrayList<ArrayList<Integer>> randomPatterns(long seed) {
+        Random random = new Random(seed);
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        for (int j = 0; j < PATTERNS; j++) {
+            ArrayList<Integer> pattern = new ArrayList<>();
+            for (int i = 0; i < WIDTHS; i++) {
+                // Mostly zeros, like real patterns
+                pattern.add(random.nextInt(4) == 0 ? 1 + random.nextInt(5) : 0);
+            }
+            patterns.add(pattern);
+        }
+        return patterns;
+    }
+
+    private static ProblemModel model(ArrayList<ArrayList<Integer>> patterns, double[] objective) {
+        ArrayList<Integer> lengths = new ArrayList<>();
+        ArrayList<Integer> coils = new ArrayList<>();
+        for (int i = 0; i < WIDTHS; i++) {
+            lengths.add(100 * (i + 1));
+            coils.add(10 + i);
+        }
+        return ProblemModel.of(objective, patterns, lengths, coils);
+    }
+
+    @Test
+    public void columnsHoldExactlyTheNonZeroCounts() {
+        ArrayList<ArrayList<Integer>> patterns = randomPatterns(1);
+        ProblemModel model = model(patterns, new double[PATTERNS]);
+
+        int[] columnStart = model.getColumnStart();
+        int[] rowIndex = model.getRowIndex();
+        int[] counts = model.getCounts();
+        assertEquals(PATTERNS + 1, columnStart.length);
+        assertEquals(0, columnStart[0]);
+        assertEquals(rowIndex.length, columnStart[PATTERNS]);
+
+        for (int j = 0; j < PATTERNS; j++) {
+            int[] dense = new int[WIDTHS];
+            for (int k = columnStart[j]; k < columnStart[j + 1]; k++) {
+                assertTrue(counts[k] != 0);
+                assertTrue(k == columnStart[j] || rowIndex[k - 1] < rowIndex[k]);
+                dense[rowIndex[k]] = counts[k];
+            }
+            for (int i = 0; i < WIDTHS; i++) {
+                assertEquals((int) patterns.get(j).get(i), dense[i]);
+            }
+        }
+    }
+
+    @Test
+    public void rowsAreTheTransposeOfTheColumns() {
+        ArrayList<ArrayList<Integer>> patterns = randomPatterns(2);
+        ProblemModel model = model(patterns, new double[PATTERNS]);
+
+        int[] rowStart = model.getRowStart();
+        int[] columnIndex = model.getColumnIndex();
+        int[] rowCounts = model.getRowCounts();
+        assertEquals(WIDTHS + 1, rowStart.length);
+        assertEquals(model.getRowIndex().length, rowStart[WIDTHS]);
+
+        for (int i = 0; i < WIDTHS; i++) {
+            int[] dense = new int[PATTERNS];
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                assertTrue(k == rowStart[i] || columnIndex[k - 1] < columnIndex[k]);
+                dense[columnIndex[k]] = rowCounts[k];
+            }
+            for (int j = 0; j < PATTERNS; j++) {
+                assertEquals((int) patterns.get(j).get(i), dense[j]);
+            }
+        }
+        // The row view is built once and shared
+        assertTrue(rowStart == model.getRowStart());
+    }
+
+    @Test
+    public void keepsTheObjectiveAndDemand() {
+        double[] objective = new double[PATTERNS];
+        Arrays.fill(objective, 25);
+        ProblemModel model = model(randomPatterns(3), objective);
+        objective[0] = -1;
+
+        assertEquals(25, model.getObjective()[0], 0);
+        assertArrayEquals(new int[]{10, 11, 12, 13, 14, 15, 16}, model.getDemand());
+        assertEquals(PATTERNS, model.getPatternCount());
+        assertEquals(WIDTHS, model.getWidthCount());
+    }
+
+    @Test
+    public void emptyPatternsHaveEmptyColumns() {
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        patterns.add(new ArrayList<>(Arrays.asList(0, 0, 0, 0, 0, 0, 0)));
+        patterns.add(new ArrayList<>(Arrays.asList(0, 2, 0, 0, 0, 0, 1)));
+        ProblemModel model = model(patterns, new double[2]);
+
+        assertArrayEquals(new int[]{0, 0, 2}, model.getColumnStart());
+        assertArrayEquals(new int[]{1, 6}, model.getRowIndex());
+        assertArrayEquals(new int[]{0, 0, 1, 1, 1, 1, 1, 2}, model.getRowStart());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAPatternOfTheWrongSize() {
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        patterns.add(new ArrayList<>(Arrays.asList(1, 0)));
+        model(patterns, new double[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMisalignedObjectiveCoefficients() {
+        model(randomPatterns(4), new double[PATTERNS - 1]);
+    }
+}
@@ -0,0 +1,49 @@
+package inteli.cc6.Algorithms.Solvers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SolveCancellationTest {
+
+    @Test
+    public void cancelAfterTheSolveIsIgnoredByTheNextSolve() {
+        SolveCancellation cancellation = new SolveCancellation();
+        cancellation.begin();
+        cancellation.search(() -> { });
+        cancellation.end();
+
+        cancellation.cancel();
+        assertFalse(cancellation.isSolving());
+
+        AtomicInteger stops = new AtomicInteger();
+        cancellation.begin();
+        cancellation.search(stops::incrementAndGet);
+        cancellation.end();
+        assertEquals(0, stops.get());
+    }
+
+    @Test
+    public void cancelDuringTheSearchStopsIt() {
+        SolveCancellation cancellation = new SolveCancellation();
+        AtomicInteger stops = new AtomicInteger();
+        cancellation.begin();
+        cancellation.search(stops::incrementAndGet);
+        cancellation.cancel();
+        assertEquals(1, stops.get());
+        cancellation.end();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void cancelWhileTheModelIsBuiltStopsTheSearchBeforeItStarts() {
+        SolveCancellation cancellation = new SolveCancellation();
+        cancellation.begin();
+        cancellation.cancel();
+        assertTrue(cancellation.isSolving());
+        cancellation.search(() -> { });
+    }
+}
@@ -0,0 +1,106 @@
+package inteli.cc6.Algorithms.Solvers.Solver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Algorithms.Solvers.SolveCancellation;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+public class PortfolioISolverTest {
+
+    /**
+     * Cuts the first pattern twice after a delay, unless it is cancelled, the way the native solvers do.
+     */
+    private static class DelayedISolver implements ISolver {
+        private final SolveCancellation cancellation = new SolveCancellation();
+        private final long delay;
+        private final double waste;
+        private final double lowerBound;
+        private volatile boolean stopped = false;
+
+        DelayedISolver(long delay, double waste, double lowerBound) {
+            this.delay = delay;
+            this.waste = waste;
+            this.lowerBound = lowerBound;
+        }
+
+        @Override
+        public void cancel() {
+            cancellation.cancel();
+        }
+
+        @Override
+        public Result solve(ProblemModel model, double[] startingSolution) {
+            cancellation.begin();
+            try {
+                stopped = false;
+                cancellation.search(() -> stopped = true);
+                long end = System.currentTimeMillis() + delay;
+                while (!stopped && System.currentTimeMillis() < end) {
+                    Thread.onSpinWait();
+                }
+                ArrayList<Pair<Double, ArrayList<Integer>>> patterns = new ArrayList<>();
+                patterns.add(new Pair<>(2.0, model.getPatterns().get(0)));
+                Result result = new Result("id", patterns, waste);
+                result.setLowerBound(lowerBound);
+                return result;
+            } finally {
+                cancellation.end();
+            }
+        }
+    }
+
+    private static ProblemModel model() {
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        patterns.add(new ArrayList<>(Arrays.asList(1)));
+        return ProblemModel.of(new double[]{50}, patterns, new ArrayList<>(Arrays.asList(50)),
+                new ArrayList<>(Arrays.asList(2)));
+    }
+
+    @Test
+    public void optimalPlanCancelsTheOtherSolvers() {
+        PortfolioISolver portfolio = new PortfolioISolver();
+        portfolio.addSolver("slow", new DelayedISolver(60_000, 100, 0));
+        portfolio.addSolver("fast", new DelayedISolver(10, 100, 100));
+
+        long start = System.currentTimeMillis();
+        Result result = portfolio.solve(model(), null);
+        assertEquals(100, result.getResultWaste(), 1e-9);
+        assertEquals(100, result.getLowerBound(), 1e-9);
+        assertEquals(true, System.currentTimeMillis() - start < 10_000);
+    }
+
+    @Test
+    public void deadlineReturnsTheBestPlanFound() {
+        PortfolioISolver portfolio = new PortfolioISolver();
+        portfolio.addSolver("worse", new DelayedISolver(60_000, 300, 0));
+        portfolio.addSolver("better", new DelayedISolver(60_000, 200, 50));
+        portfolio.setTimeLimit(100);
+
+        Result result = portfolio.solve(model(), null);
+        assertEquals("better", result.getSolverName());
+        assertEquals(200, result.getResultWaste(), 1e-9);
+        assertEquals(50, result.getLowerBound(), 1e-9);
+    }
+
+    @Test
+    public void cancelAfterTheSolveDoesNotFailTheNextSolve() {
+        DelayedISolver fast = new DelayedISolver(10, 100, 100);
+        PortfolioISolver portfolio = new PortfolioISolver();
+        portfolio.addSolver("fast", fast);
+        portfolio.solve(model(), null);
+
+        // A late cancel, as the portfolio sends when another solver wins, reaches the idle solvers
+        fast.cancel();
+        portfolio.cancel();
+
+        assertEquals(100, fast.solve(model(), null).getResultWaste(), 1e-9);
+        assertEquals("fast", portfolio.solve(model(), null).getSolverName());
+    }
+}
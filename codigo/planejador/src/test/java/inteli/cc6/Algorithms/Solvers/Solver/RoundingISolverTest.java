@@ -0,0 +1,175 @@
+package inteli.cc6.Algorithms.Solvers.Solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import inteli.cc6.Algorithms.Solvers.ISolver;
+import inteli.cc6.Algorithms.Solvers.ProblemModel;
+import inteli.cc6.Models.Result;
+import org.apache.commons.math3.util.Pair;
+import org.junit.Test;
+
+public class RoundingISolverTest {
+    private static final int MAX_LENGTH = 3000;
+
+    /**
+     * Returns a fixed fractional solution as the relaxation, listing the patterns in model order.
+     */
+    private static class FixedRelaxation implements ISolver {
+        private final double[] values;
+        private final double waste;
+
+        FixedRelaxation(double[] values, double waste) {
+            this.values = values;
+            this.waste = waste;
+        }
+
+        @Override
+        public Result solve(ProblemModel model, double[] startingSolution) {
+            ArrayList<Pair<Double, ArrayList<Integer>>> patterns = new ArrayList<>();
+            for (int j = 0; j < values.length; j++) {
+                if (values[j] > 0) {
+                    patterns.add(new Pair<>(values[j], model.getPatterns().get(j)));
+                }
+            }
+            return new Result("relaxation", patterns, waste);
+        }
+    }
+
+    private static ProblemModel randomModel(Random random, ArrayList<Integer> lengths, ArrayList<Integer> coils) {
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        ArrayList<Double> wastes = new ArrayList<>();
+        // The homogeneous patterns keep every model feasible
+        for (int i = 0; i < lengths.size(); i++) {
+            ArrayList<Integer> pattern = new ArrayList<>();
+            for (int w = 0; w < lengths.size(); w++) {
+                pattern.add(w == i ? MAX_LENGTH / lengths.get(i) : 0);
+            }
+            patterns.add(pattern);
+        }
+        for (int p = 0; p < 30; p++) {
+            ArrayList<Integer> pattern = new ArrayList<>();
+            int used = 0;
+            for (int i = 0; i < lengths.size(); i++) {
+                int count = random.nextInt(3);
+                if (used + count * lengths.get(i) > MAX_LENGTH) {
+                    count = 0;
+                }
+                pattern.add(count);
+                used += count * lengths.get(i);
+            }
+            if (used > 0) {
+                patterns.add(pattern);
+            }
+        }
+
+        double[] objective = new double[patterns.size()];
+        for (int j = 0; j < patterns.size(); j++) {
+            int used = 0;
+            for (int i = 0; i < lengths.size(); i++) {
+                used += patterns.get(j).get(i) * lengths.get(i);
+            }
+            objective[j] = MAX_LENGTH - used;
+        }
+        return ProblemModel.of(objective, patterns, lengths, coils);
+    }
+
+    /**
+     * Checks that a plan covers the demand with whole cuts, reports its waste and cannot drop any cut.
+     */
+    private static void assertMinimalCover(ProblemModel model, Result result) {
+        IdentityHashMap<ArrayList<Integer>, Integer> index = new IdentityHashMap<>();
+        for (int j = 0; j < model.getPatternCount(); j++) {
+            index.put(model.getPatterns().get(j), j);
+        }
+        long[] covered = new long[model.getWidthCount()];
+        double waste = 0;
+        for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+            assertTrue(pattern.getKey() >= 1 && pattern.getKey() == Math.rint(pattern.getKey()));
+            assertTrue(index.containsKey(pattern.getValue()));
+            waste += pattern.getKey() * model.getObjective()[index.get(pattern.getValue())];
+            for (int i = 0; i < covered.length; i++) {
+                covered[i] += (long) (double) pattern.getKey() * pattern.getValue().get(i);
+            }
+        }
+        for (int i = 0; i < covered.length; i++) {
+            assertTrue(covered[i] >= model.getDemand()[i]);
+        }
+        assertEquals(waste, result.getResultWaste(), 1e-6);
+
+        for (Pair<Double, ArrayList<Integer>> pattern : result.getPatterns()) {
+            boolean droppable = true;
+            for (int i = 0; i < covered.length; i++) {
+                droppable &= covered[i] - pattern.getValue().get(i) >= model.getDemand()[i];
+            }
+            assertFalse(droppable);
+        }
+    }
+
+    @Test
+    public void repairsRandomRelaxationsIntoCoveringPlans() {
+        Random random = new Random(21);
+        for (int instance = 0; instance < 25; instance++) {
+            ArrayList<Integer> lengths = new ArrayList<>();
+            ArrayList<Integer> coils = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                lengths.add(10 * (30 + random.nextInt(100)));
+                coils.add(1 + random.nextInt(50));
+            }
+            ProblemModel model = randomModel(random, lengths, coils);
+
+            double[] values = new double[model.getPatternCount()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = random.nextInt(3) == 0 ? random.nextDouble() * 8 : 0;
+            }
+            double bound = random.nextDouble() * 100;
+            Result result = new RoundingISolver(new FixedRelaxation(values, bound)).solve(model, null);
+
+            assertMinimalCover(model, result);
+            assertEquals(bound, result.getLowerBound(), 0);
+        }
+    }
+
+    @Test
+    public void keepsAnIntegralRelaxationThatCoversTheDemand() {
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        patterns.add(new ArrayList<>(Arrays.asList(2, 0)));
+        patterns.add(new ArrayList<>(Arrays.asList(1, 1)));
+        patterns.add(new ArrayList<>(Arrays.asList(0, 2)));
+        ProblemModel model = ProblemModel.of(new double[]{0, 500, 1000}, patterns,
+                new ArrayList<>(Arrays.asList(1000, 500)), new ArrayList<>(Arrays.asList(4, 2)));
+
+        Result result = new RoundingISolver(new FixedRelaxation(new double[]{2, 0, 1}, 1000)).solve(model, null);
+        assertEquals(1000, result.getResultWaste(), 0);
+        assertEquals(2, result.getPatterns().size());
+    }
+
+    @Test
+    public void dropsTheCutsTheRoundingDidNotNeed() {
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        patterns.add(new ArrayList<>(Arrays.asList(2, 0)));
+        patterns.add(new ArrayList<>(Arrays.asList(0, 2)));
+        ProblemModel model = ProblemModel.of(new double[]{0, 1000}, patterns,
+                new ArrayList<>(Arrays.asList(1000, 500)), new ArrayList<>(Arrays.asList(4, 2)));
+
+        // Twice as many cuts as needed
+        Result result = new RoundingISolver(new FixedRelaxation(new double[]{4.5, 2.2}, 1000)).solve(model, null);
+        assertMinimalCover(model, result);
+        assertEquals(1000, result.getResultWaste(), 0);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void failsWhenNoPatternCutsAWidth() {
+        ArrayList<ArrayList<Integer>> patterns = new ArrayList<>();
+        patterns.add(new ArrayList<>(Arrays.asList(1, 0)));
+        ProblemModel model = ProblemModel.of(new double[]{0}, patterns,
+                new ArrayList<>(Arrays.asList(1000, 500)), new ArrayList<>(Arrays.asList(1, 1)));
+        new RoundingISolver(new FixedRelaxation(new double[]{1}, 0)).solve(model, null);
+    }
+}
@@ -0,0 +1,58 @@
+package inteli.cc6.InputReader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * An input reader over a fixed order book, for the tests that cannot read a spreadsheet.
+ */
+public class FixedInputReader implements InputReader {
+    private final ArrayList<Integer> lengthList = new ArrayList<>();
+    private final ArrayList<Integer> coilList = new ArrayList<>();
+    private final HashMap<String, Integer> setupSpecs = new HashMap<>();
+
+    /**
+     * Constructs a FixedInputReader object.
+     * @param maxLength the maximum length of a coil
+     * @param maxKnives the maximum number of coils in a pattern
+     * @param lengths the length of each order
+     * @param amounts the number of coils of each order
+     */
+    public FixedInputReader(int maxLength, int maxKnives, int[] lengths, int[] amounts) {
+        setupSpecs.put("Larg Max", maxLength);
+        setupSpecs.put("Máx. bob/tirada", maxKnives);
+        for (int i = 0; i < lengths.length; i++) {
+            lengthList.add(lengths[i]);
+            coilList.add(amounts[i]);
+        }
+    }
+
+    @Override
+    public ArrayList<Integer> getLengthList() {
+        return lengthList;
+    }
+
+    @Override
+    public ArrayList<Integer> getCoilList() {
+        return coilList;
+    }
+
+    @Override
+    public ArrayList<Integer> getPriorityList() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public HashMap<String, Integer> getSetupSpecs() {
+        return setupSpecs;
+    }
+
+    @Override
+    public HashMap<Integer, Integer> getUniqueCoilLengthsAndAmounts() {
+        HashMap<Integer, Integer> amounts = new HashMap<>();
+        for (int i = 0; i < lengthList.size(); i++) {
+            amounts.merge(lengthList.get(i), coilList.get(i), Integer::sum);
+        }
+        return amounts;
+    }
+}